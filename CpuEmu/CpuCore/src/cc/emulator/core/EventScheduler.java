@@ -0,0 +1,169 @@
+package cc.emulator.core;
+
+/**
+ * Machine-wide virtual clock, in CPU cycles, and the events scheduled by the devices on it.
+ *
+ * The events are kept in a binary min-heap by deadline. The CPU advances the clock by the
+ * cycles of each instruction, which only compares the time with the nearest deadline; the
+ * devices run when one of their events is due, instead of being ticked all along.
+ */
+public class EventScheduler {
+    long now = 0;
+    long nextDeadline = Long.MAX_VALUE;
+
+    ScheduledEvent heap[] = new ScheduledEvent[16];
+    int count = 0;
+
+    public long getTime() {
+        return now;
+    }
+
+    /**
+     * Sets the time of the clock and drops the events scheduled, e.g. for the clock of a
+     * fork of a machine, whose devices schedule their own events again on it.
+     *
+     * @param time
+     *            the time
+     */
+    public void setTime(long time) {
+        for (int i = 0; i < count; i++) {
+            heap[i].index = -1;
+            heap[i] = null;
+        }
+        count = 0;
+        now = time;
+        nextDeadline = Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the deadline of the nearest event.
+     *
+     * @return the deadline, or <code>Long.MAX_VALUE</code> if no event is scheduled
+     */
+    public long getNextDeadline() {
+        return nextDeadline;
+    }
+
+    /**
+     * Advances the virtual clock, and runs the events due.
+     *
+     * @param cycles
+     *            the cycles elapsed
+     */
+    public void advance(long cycles) {
+        now += cycles;
+        if (now >= nextDeadline)
+            runDue();
+    }
+
+    /**
+     * Fast-forwards the virtual clock to a time, e.g. while the CPU only spins waiting for a
+     * device state, but never past the nearest event, which runs as due.
+     *
+     * @param time
+     *            the time to reach
+     * @return the time reached
+     */
+    public long fastForward(long time) {
+        long target = Math.min(time, nextDeadline);
+        if (target > now)
+            advance(target - now);
+        return now;
+    }
+
+    /**
+     * Runs the events due at the current time, in the order of their deadlines.
+     */
+    void runDue() {
+        while (count > 0 && heap[0].deadline <= now) {
+            ScheduledEvent event = heap[0];
+            remove(event);
+            event.fire(now);
+        }
+        nextDeadline = count > 0 ? heap[0].deadline : Long.MAX_VALUE;
+    }
+
+    /**
+     * Schedules an event, or moves it if already scheduled.
+     *
+     * @param event
+     *            the event
+     * @param deadline
+     *            the time it is due
+     */
+    public void schedule(ScheduledEvent event, long deadline) {
+        if (event.index < 0) {
+            if (count == heap.length) {
+                ScheduledEvent grown[] = new ScheduledEvent[count * 2];
+                System.arraycopy(heap, 0, grown, 0, count);
+                heap = grown;
+            }
+            event.index = count;
+            heap[count++] = event;
+            event.deadline = deadline;
+            siftUp(event.index);
+        } else {
+            long previous = event.deadline;
+            event.deadline = deadline;
+            if (deadline < previous)
+                siftUp(event.index);
+            else
+                siftDown(event.index);
+        }
+        nextDeadline = heap[0].deadline;
+    }
+
+    /**
+     * Cancels an event, if scheduled.
+     */
+    public void cancel(ScheduledEvent event) {
+        if (event.index < 0)
+            return;
+        remove(event);
+        nextDeadline = count > 0 ? heap[0].deadline : Long.MAX_VALUE;
+    }
+
+    private void remove(ScheduledEvent event) {
+        int index = event.index;
+        ScheduledEvent last = heap[--count];
+        heap[count] = null;
+        event.index = -1;
+        if (last != event) {
+            heap[index] = last;
+            last.index = index;
+            siftDown(index);
+            siftUp(last.index);
+        }
+    }
+
+    private void siftUp(int index) {
+        ScheduledEvent event = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].deadline <= event.deadline)
+                break;
+            heap[index] = heap[parent];
+            heap[index].index = index;
+            index = parent;
+        }
+        heap[index] = event;
+        event.index = index;
+    }
+
+    private void siftDown(int index) {
+        ScheduledEvent event = heap[index];
+        int half = count >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < count && heap[child + 1].deadline < heap[child].deadline)
+                child++;
+            if (event.deadline <= heap[child].deadline)
+                break;
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = event;
+        event.index = index;
+    }
+}
@@ -0,0 +1,8 @@
+package cc.emulator.core;
+
+/**
+ * Expanded memory (LIM EMS) board, banks of a large memory switched into page frames of the
+ * upper memory area through I/O ports.
+ */
+public interface ExpandedMemory extends Peripheral {
+}
@@ -1,20 +1,42 @@
 package cc.emulator.core;
 
+import cc.emulator.core.cpu.Cache;
 import cc.emulator.core.cpu.DataListener;
 import cc.emulator.core.cpu.bus.AddressBus;
 import cc.emulator.core.cpu.bus.DataBus;
 import cc.emulator.core.cpu.MemoryAccessor;
 
-import java.io.DataInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
 
 /**
  * @author Shao Yongqing
  * Date: 2017/7/25.
  */
-public class MemoryManager implements AddressBus{
+public class MemoryManager implements AddressBus, PhysicalMemory{
     /**
      * Memory
      *
@@ -138,30 +160,594 @@ public class MemoryManager implements AddressBus{
      * should not use these areas for any other purpose. Doing so may make
      * these systems incompatible with future Intel products.
      */
-    protected final int[]      memory      = new int[0x100000];
+    public static final int MEMORY_SIZE = 0x100000;
 
-    public int[] getMemoryBase(){
-        return memory;
+    public static final int PAGE_SHIFT = 12;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    public static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /** Page types of the memory map. */
+    public static final byte PAGE_RAM  = 0;
+    public static final byte PAGE_ROM  = 1;
+    public static final byte PAGE_MMIO = 2;
+    /** RAM page still shared with a fork, copied on the first write. */
+    static final byte PAGE_COW  = 3;
+
+    /**
+     * The memory, in 4K little endian pages, on the heap or in a file mapped in memory
+     * (see {@link #mapRamFile(File)}). A page may be shared with the forks of this memory,
+     * and a read-only page is always shared.
+     */
+    protected final ByteBuffer[] pages       = new ByteBuffer[MEMORY_SIZE >>> PAGE_SHIFT];
+    protected final boolean[]    pageShared  = new boolean[pages.length];
+
+    /**
+     * The pages whose content is owned outside of the memory, e.g. the bank of an expanded
+     * memory board mapped by {@link #mapPage(int, byte, ByteBuffer)}, or the memory image
+     * file. Their writes must reach that content, so they are never shared copy-on-write:
+     * a fork copies them at once.
+     */
+    protected final boolean[]    pageExternal = new boolean[pages.length];
+
+    /**
+     * Memory map, the type of each 4K page, and the device of the memory mapped pages.
+     * Everything is RAM unless mapped otherwise.
+     */
+    protected final byte[]     pageTypes   = new byte[pages.length];
+    protected final MemoryMappedDevice[] pageDevices = new MemoryMappedDevice[pages.length];
+
+    /**
+     * Pages some code has been fetched from since their last write, see {@link #markCode(int)}.
+     * Only a write into them is passed on to the caches.
+     */
+    protected final boolean[]  codePages   = new boolean[pages.length];
+    // Writes into the code pages so far
+    private int codeWrites;
+
+    public MemoryManager() {
+        for (int page = 0; page < pages.length; page++)
+            setPage(page, ByteBuffer.allocate(PAGE_SIZE));
+    }
+
+    /**
+     * Creates a fork of the memory, see {@link #fork()}.
+     *
+     * @param parent
+     *            the memory to fork
+     */
+    protected MemoryManager(MemoryManager parent) {
+        for (int page = 0; page < pages.length; page++) {
+            pages[page] = parent.pages[page];
+            pageDevices[page] = parent.pageDevices[page];
+            pageTypes[page] = parent.pageTypes[page];
+            if (parent.pageExternal[page]) {
+                // Copied for the fork only, the parent keeps writing to the content it maps
+                unshare(page);
+                continue;
+            }
+            if (pageTypes[page] == PAGE_RAM)
+                pageTypes[page] = parent.pageTypes[page] = PAGE_COW;
+            pageShared[page] = parent.pageShared[page] = true;
+        }
+    }
+
+    /**
+     * Forks the memory, e.g. to run several machines from one booted machine. The fork
+     * shares all the pages with this memory, and either side copies a shared page on its
+     * first write to it, so the memory used grows only with the pages written.
+     * The pages owned outside of the memory (see {@link #pageExternal}) are copied at once.
+     * The caches and the listeners are not forked. The memory mapped devices are still
+     * mapped, the fork of a machine maps its own devices over them.
+     *
+     * @return the fork
+     */
+    public MemoryManager fork() {
+        return new MemoryManager(this);
+    }
+
+    private void setPage(int page, ByteBuffer data) {
+        pages[page] = data.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Gives the page its own copy of the content on the heap, before writing to a shared page.
+     */
+    private void unshare(int page) {
+        ByteBuffer copy = ByteBuffer.allocate(PAGE_SIZE);
+        copy.put(view(pages[page], 0, PAGE_SIZE));
+        setPage(page, copy);
+        pageShared[page] = false;
+        if (pageTypes[page] == PAGE_COW)
+            pageTypes[page] = PAGE_RAM;
+    }
+
+    /**
+     * Gets a view of a part of a page, for the bulk transfers with the relative accesses.
+     */
+    private static ByteBuffer view(ByteBuffer page, int offset, int length) {
+        ByteBuffer view = page.duplicate();
+        view.limit(offset + length).position(offset);
+        return view;
+    }
+
+    /**
+     * Maps the pages of the specified range as RAM.
+     *
+     * @param addr
+     *            the start address, page aligned
+     * @param length
+     *            the length in bytes
+     */
+    public void mapRam(int addr, int length) {
+        mapPages(addr, length, PAGE_RAM, null);
+    }
+
+    /**
+     * Maps the pages of the specified range as ROM, the writes to them are ignored.
+     * The content is loaded by {@link #load(int, String)} or {@link #writeBytes(int, byte[], int)}.
+     *
+     * @param addr
+     *            the start address, page aligned
+     * @param length
+     *            the length in bytes
+     */
+    public void mapRom(int addr, int length) {
+        mapPages(addr, length, PAGE_ROM, null);
+    }
+
+    /**
+     * Maps the pages of the specified range to a device.
+     *
+     * @param addr
+     *            the start address, page aligned
+     * @param length
+     *            the length in bytes
+     * @param device
+     *            the device to handle the accesses
+     */
+    public void mapDevice(int addr, int length, MemoryMappedDevice device) {
+        mapPages(addr, length, PAGE_MMIO, device);
+    }
+
+    void mapPages(int addr, int length, byte type, MemoryMappedDevice device) {
+        int first = addr >>> PAGE_SHIFT;
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = first; page <= last; page++) {
+            pageTypes[page] = type == PAGE_RAM && pageShared[page] ? PAGE_COW : type;
+            pageDevices[page] = device;
+        }
+        invalidateCaches(first << PAGE_SHIFT, (last - first + 1) << PAGE_SHIFT);
+    }
+
+    /**
+     * Maps a page to the specified content, e.g. a bank of an expanded memory board, so that
+     * switching a bank is a page remap instead of a copy. The content stays owned by the
+     * caller, the page refers to it till mapped again. A ROM content is never written, it
+     * could be mapped into several pages.
+     *
+     * @param addr
+     *            the page address
+     * @param type
+     *            PAGE_RAM or PAGE_ROM
+     * @param data
+     *            the content of the page, PAGE_SIZE bytes
+     */
+    public void mapPage(int addr, byte type, ByteBuffer data) {
+        int page = addr >>> PAGE_SHIFT;
+        setPage(page, data);
+        pageShared[page] = type == PAGE_ROM;
+        pageExternal[page] = type == PAGE_RAM;
+        pageTypes[page] = type;
+        pageDevices[page] = null;
+        markDirty(page << PAGE_SHIFT);
+        invalidateCaches(page << PAGE_SHIFT, PAGE_SIZE);
+    }
+
+    public byte getPageType(int addr) {
+        byte type = pageTypes[addr >>> PAGE_SHIFT];
+        return type == PAGE_COW ? PAGE_RAM : type;
+    }
+
+    /**
+     * Pages written since the last collection, one bit per page. The bits are handed over
+     * to the consumers on each collection.
+     */
+    protected final long[]     dirtyPages  = new long[(pageTypes.length + 63) >>> 6];
+
+    // Dirty pages pending for each consumer, null if the consumer is removed
+    ArrayList<long[]> dirtyPageConsumers = new ArrayList<long[]>();
+
+    private void markDirty(int addr) {
+        int page = addr >>> PAGE_SHIFT;
+        dirtyPages[page >>> 6] |= 1L << page;
+    }
+
+    private void markDirty(int addr, int length) {
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = addr >>> PAGE_SHIFT; page <= last; page++)
+            dirtyPages[page >>> 6] |= 1L << page;
+    }
+
+    /**
+     * Registers a consumer of the dirty pages, e.g. the video adapter or a snapshot writer.
+     * Each consumer collects the pages written since its own last collection, independent
+     * of the others.
+     *
+     * @return the consumer id for {@link #collectAndClear(int)}
+     */
+    public int addDirtyPageConsumer() {
+        dirtyPageConsumers.add(new long[dirtyPages.length]);
+        return dirtyPageConsumers.size() - 1;
+    }
+
+    public void removeDirtyPageConsumer(int consumerId) {
+        dirtyPageConsumers.set(consumerId, null);
+    }
+
+    /**
+     * Collects the pages written since the last collection of the consumer, and clears them.
+     *
+     * @param consumerId
+     *            the consumer id
+     * @return the dirty pages, bit n set for the page at n * {@link #PAGE_SIZE}
+     * @throws IllegalArgumentException
+     *             if the consumer is unknown or removed
+     */
+    public BitSet collectAndClear(int consumerId) {
+        if (consumerId < 0 || consumerId >= dirtyPageConsumers.size() || dirtyPageConsumers.get(consumerId) == null)
+            throw new IllegalArgumentException("Unknown dirty page consumer " + consumerId);
+
+        // Hand the pending bits over to every consumer
+        for (int i = 0; i < dirtyPages.length; i++) {
+            long bits = dirtyPages[i];
+            if (bits == 0)
+                continue;
+            for (int c = 0; c < dirtyPageConsumers.size(); c++) {
+                long[] consumer = dirtyPageConsumers.get(c);
+                if (consumer != null)
+                    consumer[i] |= bits;
+            }
+            dirtyPages[i] = 0;
+        }
+
+        long[] consumer = dirtyPageConsumers.get(consumerId);
+        BitSet pages = BitSet.valueOf(consumer);
+        for (int i = 0; i < consumer.length; i++)
+            consumer[i] = 0;
+        return pages;
+    }
+
+    public PhysicalMemory getPhysicalMemory(){
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return MEMORY_SIZE;
+    }
+
+    /**
+     * Writes a block of bytes straight to the physical memory, e.g. to load a program.
+     * The RAM and ROM pages are written, the memory mapped pages are skipped.
+     *
+     * @param addr
+     *            the address
+     * @param data
+     *            the bytes to write
+     * @param length
+     *            the number of bytes
+     */
+    public void writeBytes(int addr, byte[] data, int length) {
+        for (int i = 0; i < length; ) {
+            int page = (addr + i) >>> PAGE_SHIFT;
+            int offset = (addr + i) & PAGE_MASK;
+            int chunk = Math.min(length - i, PAGE_SIZE - offset);
+            i += chunk;
+            // The device owns the memory mapped pages
+            if (pageTypes[page] == PAGE_MMIO)
+                continue;
+            if (pageShared[page])
+                unshare(page);
+            view(pages[page], offset, chunk).put(data, i - chunk, chunk);
+        }
+        markDirty(addr, length);
+        invalidateCaches(addr, length);
+    }
+
+    // The file backing the RAM, null if the RAM is on the heap
+    MappedByteBuffer ramFile;
+
+    /**
+     * Backs the memory with a file mapped in memory, e.g. in /dev/shm, so that other tools
+     * could read the memory with no copy, and the file is a complete memory image even after
+     * a crash.
+     *
+     * If the file already holds a complete image, the image becomes the content of the memory
+     * (a warm restart, nothing to load again); otherwise the current content is written to
+     * the file. The read-only pages (see {@link #mapRomFile(int, File)}) stay as they are.
+     * The forks of the memory get a copy of the image on the heap, the file stays the image
+     * of this memory.
+     *
+     * @param file
+     *            the memory image file
+     * @return true if the existing image of the file is kept as the memory content
+     * @throws IOException
+     *             if the file could not be mapped
+     */
+    public boolean mapRamFile(File file) throws IOException {
+        boolean restore = file.length() == MEMORY_SIZE;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(MEMORY_SIZE);
+            ramFile = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, MEMORY_SIZE);
+        } finally {
+            // The mapping stays valid after the channel is closed
+            raf.close();
+        }
+
+        for (int page = 0; page < pages.length; page++) {
+            if (pages[page].isReadOnly())
+                continue;
+            ByteBuffer data = view(ramFile, page << PAGE_SHIFT, PAGE_SIZE).slice();
+            if (!restore)
+                data.duplicate().put(view(pages[page], 0, PAGE_SIZE));
+            setPage(page, data);
+            pageShared[page] = false;
+            // The file must see all the writes, a fork copies the page instead of sharing it
+            pageExternal[page] = true;
+            if (pageTypes[page] == PAGE_COW)
+                pageTypes[page] = PAGE_RAM;
+        }
+        markDirty(0, MEMORY_SIZE);
+        invalidateCaches(0, MEMORY_SIZE);
+
+        return restore;
+    }
+
+    /**
+     * Writes the changes of the memory back to its image file, e.g. before a clean shutdown.
+     */
+    public void flushRamFile() {
+        if (ramFile != null)
+            ramFile.force();
+    }
+
+    /**
+     * Maps a ROM image file read-only into the memory, the pages are mapped as ROM and read
+     * straight from the file.
+     *
+     * @param addr
+     *            the address, page aligned
+     * @param file
+     *            the ROM image file
+     * @return the size of the ROM
+     * @throws IOException
+     *             if the file could not be mapped
+     */
+    public int mapRomFile(int addr, File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        MappedByteBuffer rom;
+        try {
+            rom = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+
+        int length = rom.capacity();
+        mapRom(addr, length);
+        for (int offset = 0; offset < length; offset += PAGE_SIZE) {
+            int page = (addr + offset) >>> PAGE_SHIFT;
+            if (length - offset >= PAGE_SIZE) {
+                setPage(page, view(rom, offset, PAGE_SIZE).slice());
+                pageShared[page] = true;
+            } else {
+                // The tail of the image, less than a page
+                if (pageShared[page])
+                    unshare(page);
+                view(pages[page], 0, length - offset).put(view(rom, offset, length - offset));
+            }
+        }
+        markDirty(addr, length);
+        invalidateCaches(addr, length);
+
+        return length;
+    }
+
+    /**
+     * Returns if the pages of the range are all ROM pages, starting at a page boundary.
+     */
+    private boolean isRomRange(int addr, int length) {
+        if ((addr & PAGE_MASK) != 0 || length <= 0 || addr + length > MEMORY_SIZE)
+            return false;
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = addr >>> PAGE_SHIFT; page <= last; page++) {
+            if (pageTypes[page] != PAGE_ROM)
+                return false;
+        }
+        return true;
     }
 
+    /**
+     * Loads an image into the memory, from a file of the filesystem if the path names one,
+     * otherwise from a resource of the class path.
+     *
+     * @param addr
+     *            the address
+     * @param path
+     *            the file path or the resource name
+     * @return the number of bytes loaded
+     * @throws IOException
+     *             if the image could not be found or read
+     */
     public int load(final int addr, final String path) throws IOException {
-        final InputStream is = getClass().getClassLoader().getResourceAsStream(path);
-        final byte[] bin = new byte[is.available()];
-        DataInputStream dis = null;
+        final File file = new File(path);
+        if (file.isFile())
+            return load(addr, file);
+
+        final URL url = getClass().getClassLoader().getResource(path);
+        if (url == null)
+            throw new FileNotFoundException(path);
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return load(addr, new File(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid resource URL " + url, e);
+            }
+        }
+
+        // A resource in a jar, read through its stream
+        final InputStream in = url.openStream();
         try {
-            dis = new DataInputStream(is);
-            dis.readFully(bin);
-        } catch (final IOException e) {
-            e.printStackTrace();
+            // A ROM image is shared with the other memories of the JVM, see loadSharedRom
+            if (isRomRange(addr, PAGE_SIZE)) {
+                final byte[] image = readAll(in);
+                if (isRomRange(addr, image.length))
+                    return loadSharedRom(addr, image);
+                writeBytes(addr, image, image.length);
+                return image.length;
+            }
+            return load(addr, Channels.newChannel(in));
         } finally {
-            if (dis != null)
-                dis.close();
-            is.close();
+            in.close();
         }
-        for (int i = 0; i < bin.length; i++)
-            memory[addr + i] = bin[i] & 0xff;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[PAGE_SIZE];
+        int count;
+        while ((count = in.read(buffer)) >= 0)
+            out.write(buffer, 0, count);
+        return out.toByteArray();
+    }
+
+    /**
+     * Loads an image file into the memory. The file is read straight into the pages of the
+     * memory, with no intermediate buffer.
+     *
+     * @param addr
+     *            the address
+     * @param file
+     *            the image file
+     * @return the number of bytes loaded
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public int load(final int addr, final File file) throws IOException {
+        // A ROM image is shared, with the memory backed by a file it is mapped read-only,
+        // otherwise its pages are shared with the other memories of the JVM
+        if (isRomRange(addr, (int) file.length()))
+            return ramFile != null ? mapRomFile(addr, file) : loadSharedRom(addr, Files.readAllBytes(file.toPath()));
 
-        return bin.length;
+        final FileInputStream fis = new FileInputStream(file);
+        try {
+            return load(addr, fis.getChannel());
+        } finally {
+            fis.close();
+        }
+    }
+
+    // The pages of the ROM images loaded in the JVM, by content hash, see loadSharedRom. The
+    // pages are weakly referenced, only the memories using them keep them alive.
+    private static final HashMap<String, ArrayList<WeakReference<ByteBuffer>>> sharedRoms =
+            new HashMap<String, ArrayList<WeakReference<ByteBuffer>>>();
+
+    /**
+     * Loads a ROM image with its pages shared by all the memories of the JVM loading the same
+     * image, identified by the hash of its content. So many machines run in one JVM hold only
+     * one copy of each ROM. The shared pages are never written, as any other shared page.
+     * Once no memory uses an image any more, its pages are collected and its entry dropped.
+     *
+     * @throws IOException
+     *             if the content hash is not available
+     */
+    private int loadSharedRom(int addr, byte[] image) throws IOException {
+        final String key;
+        try {
+            key = new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(image)).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("No content hash to share the ROM image", e);
+        }
+
+        ByteBuffer[] romPages = new ByteBuffer[image.length >>> PAGE_SHIFT];
+        synchronized (sharedRoms) {
+            // Drop the images no memory uses any more
+            Iterator<ArrayList<WeakReference<ByteBuffer>>> images = sharedRoms.values().iterator();
+            while (images.hasNext()) {
+                for (WeakReference<ByteBuffer> romPage : images.next()) {
+                    if (romPage.get() == null) {
+                        images.remove();
+                        break;
+                    }
+                }
+            }
+
+            ArrayList<WeakReference<ByteBuffer>> shared = sharedRoms.get(key);
+            // The pages could still be collected till held here
+            boolean alive = shared != null;
+            for (int i = 0; alive && i < romPages.length; i++)
+                alive = (romPages[i] = shared.get(i).get()) != null;
+            if (!alive) {
+                // The whole pages of the image, the tail is copied by each memory
+                shared = new ArrayList<WeakReference<ByteBuffer>>(romPages.length);
+                for (int i = 0; i < romPages.length; i++) {
+                    romPages[i] = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    romPages[i].put(image, i << PAGE_SHIFT, PAGE_SIZE);
+                    shared.add(new WeakReference<ByteBuffer>(romPages[i]));
+                }
+                sharedRoms.put(key, shared);
+            }
+        }
+
+        int page = addr >>> PAGE_SHIFT;
+        for (int i = 0; i < romPages.length; i++) {
+            pages[page + i] = romPages[i];
+            pageShared[page + i] = true;
+        }
+        int tail = image.length & PAGE_MASK;
+        if (tail != 0) {
+            page += romPages.length;
+            if (pageShared[page])
+                unshare(page);
+            view(pages[page], 0, tail).put(image, image.length - tail, tail);
+        }
+
+        markDirty(addr, image.length);
+        invalidateCaches(addr, image.length);
+        return image.length;
+    }
+
+    /**
+     * Reads a channel into the pages of the memory, till the end of the channel or of the memory.
+     * A shared page is copied only once some bytes are read into it, and the bytes for the
+     * memory mapped pages are dropped, the device owns them.
+     */
+    private int load(int addr, ReadableByteChannel channel) throws IOException {
+        int length = 0;
+        int count = 0;
+        while (count >= 0 && addr + length < MEMORY_SIZE) {
+            int page = (addr + length) >>> PAGE_SHIFT;
+            int offset = (addr + length) & PAGE_MASK;
+            boolean direct = !pageShared[page] && pageTypes[page] != PAGE_MMIO;
+
+            ByteBuffer target = direct ? pages[page] : ByteBuffer.allocate(PAGE_SIZE);
+
+            ByteBuffer view = view(target, offset, PAGE_SIZE - offset);
+            while (view.hasRemaining() && (count = channel.read(view)) >= 0)
+                ;
+            int read = view.position() - offset;
+            if (read > 0 && !direct && pageTypes[page] != PAGE_MMIO) {
+                unshare(page);
+                view(pages[page], offset, read).put(view(view, offset, read));
+            }
+            length += read;
+        }
+
+        if (length > 0) {
+            markDirty(addr, length);
+            invalidateCaches(addr, length);
+        }
+        return length;
     }
 
     public void reset() {
@@ -182,63 +768,487 @@ public class MemoryManager implements AddressBus{
     }
 
     ArrayList<DataListener> dataListeners =  new ArrayList<DataListener>();
+    // Address range {addr, length} of each listener
+    ArrayList<int[]> dataListenerRanges = new ArrayList<int[]>();
 
-    void notifyDataReady(DataBus dataBus){
-        for(DataListener dataListener : dataListeners) {
-            dataListener.dataReady(dataBus);
+    // Number of listeners of each page, the accesses to a listened page go through the bus
+    final int[] pageListeners = new int[pages.length];
+
+    void notifyDataReady(int addr, DataBus dataBus){
+        for(int i=0; i<dataListeners.size(); i++) {
+            int[] range = dataListenerRanges.get(i);
+            if(addr >= range[0] && addr - range[0] < range[1])
+                dataListeners.get(i).dataReady(dataBus);
         }
     }
 
+    /**
+     * Adds a listener of the reads of the whole memory.
+     */
     public void  addDataListener(DataListener l){
+        addDataListener(l, 0, MEMORY_SIZE);
+    }
+
+    /**
+     * Adds a listener of the reads of an address range. Only the pages of the range lose
+     * the direct access path, see {@link #isListened(int, int)}.
+     *
+     * @param l
+     *            the listener
+     * @param addr
+     *            the start address
+     * @param length
+     *            the length in bytes
+     */
+    public void  addDataListener(DataListener l, int addr, int length){
         dataListeners.add(l);
+        dataListenerRanges.add(new int[]{addr, length});
+        countListeners(addr, length, 1);
+        listened = true;
     }
 
     public DataListener removeDataListener(DataListener l){
-        if(dataListeners.remove(l))
-            return l;
+        int i = dataListeners.indexOf(l);
+        if(i < 0)
+            return null;
+        dataListeners.remove(i);
+        int[] range = dataListenerRanges.remove(i);
+        countListeners(range[0], range[1], -1);
+        listened = !dataListeners.isEmpty();
+        return l;
+    }
+
+    private void countListeners(int addr, int length, int delta) {
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = addr >>> PAGE_SHIFT; page <= last; page++)
+            pageListeners[page] += delta;
+    }
+
+    boolean listened = false;
+
+    /**
+     * Returns if some memory accesses must go through the bus protocol, i.e. some listener
+     * is registered.
+     *
+     * @return true if any data listener registered
+     */
+    public boolean isListened() {
+        return listened;
+    }
+
+    /**
+     * Returns if the accesses to a range must go through the bus protocol, i.e. a listener
+     * is registered for one of its pages. Otherwise the direct read/write methods could be
+     * used, the memory mapped pages are handed to their device by them too.
+     *
+     * @param addr
+     *            the start address
+     * @param length
+     *            the length in bytes
+     * @return true if a page of the range is listened
+     */
+    public boolean isListened(int addr, int length) {
+        if (!listened)
+            return false;
+        // The range wraps around the end of the memory as the addresses do
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = addr >>> PAGE_SHIFT; page <= last; page++) {
+            if (pageListeners[page & (pageListeners.length - 1)] != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a byte straight from the physical memory, bypassing the bus and its listeners.
+     *
+     * @param addr
+     *            the address
+     * @return the byte value
+     */
+    public int readByte(int addr) {
+        int page = addr >>> PAGE_SHIFT;
+        if (pageTypes[page] != PAGE_MMIO)
+            return pages[page].get(addr & PAGE_MASK) & 0xFF;
+        return pageDevices[page].readByte(addr) & 0xFF;
+    }
+
+    /**
+     * Reads a word (little endian) straight from the physical memory.
+     *
+     * @param addr
+     *            the address
+     * @return the word value
+     */
+    public int readWord(int addr) {
+        int page = addr >>> PAGE_SHIFT;
+        if (pageTypes[page] != PAGE_MMIO && (addr & PAGE_MASK) != PAGE_MASK)
+            return pages[page].getShort(addr & PAGE_MASK) & 0xFFFF;
+        // Memory mapped, or crossing pages, wrapping around the end of the memory
+        return readByte((addr + 1) & (MEMORY_SIZE - 1)) << 8 | readByte(addr);
+    }
+
+    /**
+     * Writes a byte straight to the physical memory, bypassing the bus.
+     *
+     * @param addr
+     *            the address
+     * @param val
+     *            the value
+     */
+    public void writeByte(int addr, int val) {
+        int page = addr >>> PAGE_SHIFT;
+        switch (pageTypes[page]) {
+            case PAGE_COW:
+                unshare(page);
+            case PAGE_RAM:
+                pages[page].put(addr & PAGE_MASK, (byte) val);
+                markDirty(addr);
+                if (codePages[page])
+                    invalidateCaches(addr, 1);
+                break;
+            case PAGE_MMIO:
+                pageDevices[page].writeByte(addr, val & 0xFF);
+                break;
+            default:
+                // ROM
+                break;
+        }
+    }
+
+    /**
+     * Writes a word (little endian) straight to the physical memory.
+     *
+     * @param addr
+     *            the address
+     * @param val
+     *            the value
+     */
+    public void writeWord(int addr, int val) {
+        int page = addr >>> PAGE_SHIFT;
+        if (pageTypes[page] == PAGE_RAM && (addr & PAGE_MASK) != PAGE_MASK) {
+            pages[page].putShort(addr & PAGE_MASK, (short) val);
+            markDirty(addr);
+            if (codePages[page])
+                invalidateCaches(addr, 2);
+            return;
+        }
+        // ROM, shared, memory mapped, or crossing pages, wrapping around the end of the memory
+        writeByte(addr, val);
+        writeByte((addr + 1) & (MEMORY_SIZE - 1), val >>> 8);
+    }
+
+    /**
+     * Returns if all the pages of the range could be accessed straight on the page arrays,
+     * i.e. no memory mapped page (and no ROM page, for a write). The shared pages of the
+     * range are copied for a write.
+     */
+    private boolean isPlainRange(int addr, int length, boolean write) {
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = addr >>> PAGE_SHIFT; page <= last; page++) {
+            if (write && pageTypes[page] == PAGE_COW)
+                unshare(page);
+            if (write ? pageTypes[page] != PAGE_RAM : pageTypes[page] == PAGE_MMIO)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads eight bytes (little endian), the caller makes sure they are in one plain page.
+     */
+    private long readLong(int addr) {
+        return pages[addr >>> PAGE_SHIFT].getLong(addr & PAGE_MASK);
+    }
+
+    private static boolean isLongInPage(int addr) {
+        return (addr & PAGE_MASK) <= PAGE_SIZE - 8;
+    }
+
+    /**
+     * Copies a block of memory, e.g. for a repeated MOVS. The ROM pages of the destination
+     * are left untouched, and the memory mapped pages are accessed byte by byte.
+     *
+     * @param dst
+     *            the destination address
+     * @param src
+     *            the source address
+     * @param length
+     *            the number of bytes
+     */
+    public void copy(int dst, int src, int length) {
+        if (length <= 0)
+            return;
+        if (dst > src && dst < src + length) {
+            // Overlapping, copy down from the end
+            for (int i = length - 1; i >= 0; i--)
+                writeByte(dst + i, readByte(src + i));
+            return;
+        }
+        if (isPlainRange(src, length, false) && isPlainRange(dst, length, true)) {
+            for (int i = 0; i < length; ) {
+                int from = src + i;
+                int to = dst + i;
+                int chunk = Math.min(length - i,
+                        PAGE_SIZE - Math.max(from & PAGE_MASK, to & PAGE_MASK));
+                view(pages[to >>> PAGE_SHIFT], to & PAGE_MASK, chunk)
+                        .put(view(pages[from >>> PAGE_SHIFT], from & PAGE_MASK, chunk));
+                i += chunk;
+            }
+            markDirty(dst, length);
+            invalidateCaches(dst, length);
+            return;
+        }
+        for (int i = 0; i < length; i++)
+            writeByte(dst + i, readByte(src + i));
+    }
+
+    /**
+     * Fills a block of memory with a byte or word value, e.g. for a repeated STOS.
+     *
+     * @param addr
+     *            the start address
+     * @param count
+     *            the number of elements
+     * @param w
+     *            byte/word elements, {@link MemoryAccessor#BYTE1} or {@link MemoryAccessor#BYTE2}
+     * @param val
+     *            the value
+     */
+    public void fill(int addr, int count, int w, int val) {
+        int length = count << w;
+        if (length <= 0)
+            return;
+        if (isPlainRange(addr, length, true)) {
+            byte low = (byte) val;
+            byte high = w == MemoryAccessor.BYTE1 ? low : (byte) (val >>> 8);
+            for (int i = 0; i < length; ) {
+                int page = (addr + i) >>> PAGE_SHIFT;
+                int offset = (addr + i) & PAGE_MASK;
+                int chunk = Math.min(length - i, PAGE_SIZE - offset);
+                ByteBuffer data = pages[page];
+                if (low == high && data.hasArray()) {
+                    Arrays.fill(data.array(), data.arrayOffset() + offset,
+                            data.arrayOffset() + offset + chunk, low);
+                } else {
+                    for (int j = 0; j < chunk; j++)
+                        data.put(offset + j, ((i + j) & 0b1) == 0 ? low : high);
+                }
+                i += chunk;
+            }
+            markDirty(addr, length);
+            invalidateCaches(addr, length);
+            return;
+        }
+        for (int i = 0; i < length; i += 1 << w) {
+            if (w == MemoryAccessor.BYTE1)
+                writeByte(addr + i, val);
+            else
+                writeWord(addr + i, val);
+        }
+    }
+
+    /**
+     * Compares two blocks of memory element by element, e.g. for a repeated CMPS.
+     *
+     * @param addr1
+     *            the address of the first block
+     * @param addr2
+     *            the address of the second block
+     * @param count
+     *            the number of elements
+     * @param w
+     *            byte/word elements
+     * @param equal
+     *            to count the leading equal elements (REPE), or the unequal ones (REPNE)
+     * @return the number of leading elements whose equality matches <code>equal</code>
+     */
+    public int compare(int addr1, int addr2, int count, int w, boolean equal) {
+        int length = count << w;
+        boolean plain = isPlainRange(addr1, length, false) && isPlainRange(addr2, length, false);
+        int i = 0;
+        while (i < length) {
+            if (plain && i + 8 <= length && isLongInPage(addr1 + i) && isLongInPage(addr2 + i)) {
+                // Eight bytes at a time
+                long lanes = mismatchLanes(readLong(addr1 + i) ^ readLong(addr2 + i), w, equal);
+                if (lanes != 0)
+                    return (i + (Long.numberOfTrailingZeros(lanes) >>> 3)) >>> w;
+                i += 8;
+                continue;
+            }
+            boolean same = w == MemoryAccessor.BYTE1
+                    ? readByte(addr1 + i) == readByte(addr2 + i)
+                    : readWord(addr1 + i) == readWord(addr2 + i);
+            if (same != equal)
+                break;
+            i += 1 << w;
+        }
+        return i >>> w;
+    }
+
+    /**
+     * Scans a block of memory for a byte or word value, e.g. for a repeated SCAS.
+     *
+     * @param addr
+     *            the start address
+     * @param count
+     *            the number of elements
+     * @param w
+     *            byte/word elements
+     * @param val
+     *            the value to scan for
+     * @param equal
+     *            to count the leading elements equal to the value (REPE), or unequal to it (REPNE)
+     * @return the number of leading elements whose equality matches <code>equal</code>
+     */
+    public int scan(int addr, int count, int w, int val, boolean equal) {
+        int length = count << w;
+        boolean plain = isPlainRange(addr, length, false);
+        val &= w == MemoryAccessor.BYTE1 ? 0xFF : 0xFFFF;
+        long pattern = w == MemoryAccessor.BYTE1 ? val * 0x0101010101010101L : val * 0x0001000100010001L;
+        int i = 0;
+        while (i < length) {
+            if (plain && i + 8 <= length && isLongInPage(addr + i)) {
+                // Eight bytes at a time
+                long lanes = mismatchLanes(readLong(addr + i) ^ pattern, w, equal);
+                if (lanes != 0)
+                    return (i + (Long.numberOfTrailingZeros(lanes) >>> 3)) >>> w;
+                i += 8;
+                continue;
+            }
+            int element = w == MemoryAccessor.BYTE1 ? readByte(addr + i) : readWord(addr + i);
+            if ((element == val) != equal)
+                break;
+            i += 1 << w;
+        }
+        return i >>> w;
+    }
+
+    /**
+     * Finds the lanes (bytes or words) of the xor of two longs which stop a comparison, the
+     * nonzero lanes when counting the equal elements, or the zero lanes otherwise.
+     *
+     * @return the lanes stopping the comparison, marked by at least one bit in each
+     */
+    private static long mismatchLanes(long x, int w, boolean equal) {
+        if (equal)
+            return x;
+        long low = w == MemoryAccessor.BYTE1 ? 0x7F7F7F7F7F7F7F7FL : 0x7FFF7FFF7FFF7FFFL;
+        // The top bit of a lane is set if the lane is nonzero, without carries between lanes
+        long nonzero = ((x & low) + low) | x;
+        return ~nonzero & ~low;
+    }
+
+    ArrayList<Cache> caches =  new ArrayList<Cache>();
+
+    /**
+     * Adds a cache of the memory content, e.g. the decoded instruction cache of the CPU,
+     * which is invalidated on the writes into the code pages. The cache must mark the pages
+     * it holds code from by {@link #markCode(int)}.
+     *
+     * @param cache the cache
+     */
+    public void addCache(Cache cache){
+        caches.add(cache);
+    }
+
+    public Cache removeCache(Cache cache){
+        if(caches.remove(cache))
+            return cache;
         return null;
     }
 
+    /**
+     * Marks the page of an address as holding code, e.g. fetched to the prefetch queue or
+     * decoded into the instruction cache. The next write into the page invalidates the caches,
+     * and the mark is cleared by it.
+     *
+     * @param addr
+     *            the physical address of the code
+     */
+    public void markCode(int addr) {
+        codePages[addr >>> PAGE_SHIFT] = true;
+    }
+
+    /**
+     * Gets the number of writes into the code pages so far, changed whenever the caches are
+     * invalidated, e.g. for the prefetch queue to check if its bytes could be stale.
+     *
+     * @return the code write count
+     */
+    public int getCodeWrites() {
+        return codeWrites;
+    }
+
+    /**
+     * Invalidates the caches over a written range, if some code page is in it.
+     */
+    public void invalidateCaches(int addr, int length){
+        boolean code = false;
+        int last = (addr + length - 1) >>> PAGE_SHIFT;
+        for (int page = addr >>> PAGE_SHIFT; page <= last; page++) {
+            code |= codePages[page & (codePages.length - 1)];
+            codePages[page & (codePages.length - 1)] = false;
+        }
+        if (!code)
+            return;
+
+        codeWrites++;
+        for(int i=0; i<caches.size(); i++) {
+            caches.get(i).invalidate(addr, length);
+        }
+    }
+
+    /**
+     * Returns if an access of <code>size</code> bytes stays in one RAM or ROM page, so it
+     * could be done straight on the page array.
+     */
+    private boolean isPlain(int addr, int size) {
+        return pageTypes[addr >>> PAGE_SHIFT] != PAGE_MMIO && (addr & PAGE_MASK) <= PAGE_SIZE - size;
+    }
+
+    private int readInt(int addr) {
+        if (isPlain(addr, 4))
+            return pages[addr >>> PAGE_SHIFT].getInt(addr & PAGE_MASK);
+        return readWord((addr + 2) & (MEMORY_SIZE - 1)) << 16 | readWord(addr);
+    }
+
+    private void writeInt(int addr, int val) {
+        if (isPlain(addr, 4) && pageTypes[addr >>> PAGE_SHIFT] == PAGE_RAM) {
+            pages[addr >>> PAGE_SHIFT].putInt(addr & PAGE_MASK, val);
+            markDirty(addr);
+            if (codePages[addr >>> PAGE_SHIFT])
+                invalidateCaches(addr, 4);
+            return;
+        }
+        writeWord(addr, val);
+        writeWord((addr + 2) & (MEMORY_SIZE - 1), val >>> 16);
+    }
+
     protected void readMemory(int addr, DataBus dataBus) {
         if(dataBus.getMode()== MemoryAccessor.READ) {
-            int val = 0;
+            int val;
             switch (dataBus.getDataWidth()) {
                 case MemoryAccessor.BYTE8:
-//                    val |= memory[addr];
-//                    val |= memory[addr + 1] << 8;
-//                    val |= memory[addr + 2] << 16;
-//                    val |= memory[addr + 3] << 24;
-//                    dataBus.writeData(val);
-                    int val2 = memory[addr + 4];
-                    val2 |= memory[addr + 5] << 8;
-                    val2 |= memory[addr + 6] << 16;
-                    val2 |= memory[addr + 7] << 24;
-                    dataBus.writeData2(val2);
-//                    notifyDataReady(dataBus);
-//                    break;
-
+                    dataBus.writeData2(readInt((addr + 4) & (MEMORY_SIZE - 1)));
+                    val = readInt(addr);
+                    break;
                 case MemoryAccessor.BYTE4:
-                    val |= memory[addr + 3] << 24;
-                    val |= memory[addr + 2] << 16;
+                    val = readInt(addr);
+                    break;
                 case MemoryAccessor.BYTE2:
-                    val |= memory[addr + 1] << 8;
+                    val = readWord(addr);
+                    break;
                 case MemoryAccessor.BYTE1:
-                    val |= memory[addr];
-                    dataBus.writeData(val);
-
-                    notifyDataReady(dataBus);
+                    val = readByte(addr);
                     break;
-
                 default:
-                    break;
+                    return;
             }
+            dataBus.writeData(val);
+
+            notifyDataReady(addr, dataBus);
         }
-//        if (w == W) {
-//            if ((addr & 0b1) == 0b1)
-//                clocks += 4;
-//            val |= memory[addr + 1] << 8;
-//        }
-//        return val;
     }
 
     protected void writeMemory(int addr, DataBus dataBus) {
@@ -246,27 +1256,23 @@ public class MemoryManager implements AddressBus{
             int val = dataBus.readData();
             switch (dataBus.getDataWidth()) {
                 case MemoryAccessor.BYTE8:
-                    int val2 = dataBus.readData2();
-                    memory[addr+7] = (val2>>24) & 0xFF;
-                    memory[addr+6] = (val2>>16) & 0xFF;
-                    memory[addr+5] = (val2>>8) & 0xFF;
-                    memory[addr+4] = val2 & 0xFF;
-
+                    writeInt((addr + 4) & (MEMORY_SIZE - 1), dataBus.readData2());
+                    writeInt(addr, val);
+                    break;
                 case MemoryAccessor.BYTE4:
-                    memory[addr+3] = (val>>24) & 0xFF;
-                    memory[addr+2] = (val>>16) & 0xFF;
-
+                    writeInt(addr, val);
+                    break;
                 case MemoryAccessor.BYTE2:
-                    memory[addr+1] = (val>>8) & 0xFF;
-
+                    writeWord(addr, val);
+                    break;
                 case MemoryAccessor.BYTE1:
-                    memory[addr] = val & 0xFF;
+                    writeByte(addr, val);
                     break;
             }
         }
     }
 
     public boolean isValidAddress(int addr) {
-        return addr<memory.length;
+        return addr < MEMORY_SIZE;
     }
 }
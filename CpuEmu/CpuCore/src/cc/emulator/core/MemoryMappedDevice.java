@@ -0,0 +1,26 @@
+package cc.emulator.core;
+
+/**
+ * A device mapped into the physical address space, e.g. the memory window of an adapter.
+ * The accesses to its pages are handed over to the device instead of the RAM.
+ */
+public interface MemoryMappedDevice {
+    /**
+     * Reads a byte from the specified physical address.
+     *
+     * @param addr
+     *            the address
+     * @return the byte value
+     */
+    public int readByte(final int addr);
+
+    /**
+     * Writes a byte to the specified physical address.
+     *
+     * @param addr
+     *            the address
+     * @param val
+     *            the value
+     */
+    public void writeByte(final int addr, final int val);
+}
@@ -0,0 +1,31 @@
+package cc.emulator.core;
+
+/**
+ * The handler of the I/O ports no peripheral is connected to. The reads return a fixed
+ * value, e.g. all bits set for an undriven bus, the writes are ignored.
+ */
+public class OpenBus implements Peripheral {
+    final int value;
+
+    /**
+     * @param value
+     *            the byte value read from the ports
+     */
+    public OpenBus(int value) {
+        this.value = value & 0xff;
+    }
+
+    @Override
+    public boolean isConnected(final int port) {
+        return true;
+    }
+
+    @Override
+    public int portIn(final int w, final int port) {
+        return w == 1 ? value << 8 | value : value;
+    }
+
+    @Override
+    public void portOut(final int w, final int port, final int val) {
+    }
+}
@@ -0,0 +1,22 @@
+package cc.emulator.core;
+
+/**
+ * Byte addressed view of the physical memory, for the components which access it
+ * directly (e.g. the video adapter, the memory and instruction panes).
+ */
+public interface PhysicalMemory {
+    /**
+     * Gets the size of the physical memory in bytes.
+     *
+     * @return the size
+     */
+    int size();
+
+    int readByte(int addr);
+
+    int readWord(int addr);
+
+    void writeByte(int addr, int val);
+
+    void writeWord(int addr, int val);
+}
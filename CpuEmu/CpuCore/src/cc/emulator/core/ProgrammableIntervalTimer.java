@@ -5,5 +5,8 @@ package cc.emulator.core;
  * Date: 2017/7/27.
  */
 public interface ProgrammableIntervalTimer extends Peripheral{
-    void tick();
+    /**
+     * Sets the virtual clock the timer counts on and schedules its interrupts on.
+     */
+    void setScheduler(EventScheduler scheduler);
 }
@@ -0,0 +1,29 @@
+package cc.emulator.core;
+
+/**
+ * An event of a device due at a time of the virtual clock, e.g. a timer reaching its terminal
+ * count, see {@link EventScheduler}.
+ */
+public abstract class ScheduledEvent {
+    // Due time, in CPU cycles
+    long deadline;
+    // Position in the heap of the scheduler, -1 if not scheduled
+    int index = -1;
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public boolean isScheduled() {
+        return index >= 0;
+    }
+
+    /**
+     * Runs the event, once the virtual clock reaches its deadline. The event is no longer
+     * scheduled, it could schedule itself again, e.g. for the next period.
+     *
+     * @param now
+     *            the current time, at or after the deadline
+     */
+    public abstract void fire(long now);
+}
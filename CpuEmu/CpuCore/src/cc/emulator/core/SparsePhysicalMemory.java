@@ -0,0 +1,216 @@
+package cc.emulator.core;
+
+import cc.emulator.core.cpu.MemoryAccessor;
+import cc.emulator.core.cpu.bus.AddressBus;
+import cc.emulator.core.cpu.bus.DataBus;
+
+/**
+ * Sparse physical memory for the 32 and 64 bits CPUs (i386, x64), which address far more
+ * memory than the 1MB of the {@link MemoryManager}.
+ *
+ * The memory is split in 4K pages, found by a two-level page directory: the directory
+ * indexes the page tables, each table indexes 1024 pages (4MB). A page, and its table,
+ * is allocated on the first write to it, the pages never written read as zero. So a machine
+ * configured with 64MB only costs the memory its guest actually writes.
+ *
+ * The 32-bit addresses of the {@link AddressBus} and {@link PhysicalMemory} accesses are
+ * taken as unsigned, up to 4GB; the <code>long</code> accesses go beyond, for x64.
+ * The addresses beyond the memory size read as an open bus (all bits set), the writes to
+ * them are dropped.
+ */
+public class SparsePhysicalMemory implements AddressBus, PhysicalMemory {
+    public static final int PAGE_SHIFT = 12;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    public static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /** Pages per page table. */
+    public static final int TABLE_SHIFT = 10;
+    public static final int TABLE_SIZE = 1 << TABLE_SHIFT;
+    public static final int TABLE_MASK = TABLE_SIZE - 1;
+
+    private static final int DIRECTORY_SHIFT = PAGE_SHIFT + TABLE_SHIFT;
+
+    final long size;
+
+    // Page tables indexed by the top address bits, a table or a page is null until written
+    final byte[][][] directory;
+
+    int allocatedPages = 0;
+
+    /**
+     * Creates a sparse memory.
+     *
+     * @param size
+     *            the memory size in bytes, a multiple of {@link #PAGE_SIZE}
+     */
+    public SparsePhysicalMemory(long size) {
+        long tables = (size + (1L << DIRECTORY_SHIFT) - 1) >>> DIRECTORY_SHIFT;
+        if (size <= 0 || (size & PAGE_MASK) != 0 || tables > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid memory size: " + size);
+
+        this.size = size;
+        directory = new byte[(int) tables][][];
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the size in bytes, up to <code>Integer.MAX_VALUE</code>, see {@link #getSize()}.
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the memory actually allocated, for the pages written.
+     *
+     * @return the allocated size in bytes
+     */
+    public long getAllocatedSize() {
+        return (long) allocatedPages << PAGE_SHIFT;
+    }
+
+    /**
+     * Finds the page of an address.
+     *
+     * @return the page, or null if never written
+     */
+    private byte[] getPage(long addr) {
+        byte[][] table = directory[(int) (addr >>> DIRECTORY_SHIFT)];
+        if (table == null)
+            return null;
+        return table[(int) (addr >>> PAGE_SHIFT) & TABLE_MASK];
+    }
+
+    /**
+     * Finds the page of an address for a write, allocating it on the first write.
+     */
+    private byte[] touchPage(long addr) {
+        int index = (int) (addr >>> DIRECTORY_SHIFT);
+        byte[][] table = directory[index];
+        if (table == null) {
+            table = new byte[TABLE_SIZE][];
+            directory[index] = table;
+        }
+        int page = (int) (addr >>> PAGE_SHIFT) & TABLE_MASK;
+        byte[] data = table[page];
+        if (data == null) {
+            data = new byte[PAGE_SIZE];
+            table[page] = data;
+            allocatedPages++;
+        }
+        return data;
+    }
+
+    public int readByte(long addr) {
+        if (addr < 0 || addr >= size)
+            return 0xFF;
+        byte[] page = getPage(addr);
+        return page == null ? 0 : page[(int) addr & PAGE_MASK] & 0xFF;
+    }
+
+    public int readWord(long addr) {
+        int offset = (int) addr & PAGE_MASK;
+        if (offset <= PAGE_SIZE - 2 && addr >= 0 && addr + 2 <= size) {
+            byte[] page = getPage(addr);
+            if (page == null)
+                return 0;
+            return (page[offset] & 0xFF) | (page[offset + 1] & 0xFF) << 8;
+        }
+        // Crossing pages, or out of the memory
+        return readByte(addr) | readByte(addr + 1) << 8;
+    }
+
+    public int readDoubleWord(long addr) {
+        return readWord(addr) | readWord(addr + 2) << 16;
+    }
+
+    public void writeByte(long addr, int val) {
+        if (addr < 0 || addr >= size)
+            return;
+        touchPage(addr)[(int) addr & PAGE_MASK] = (byte) val;
+    }
+
+    public void writeWord(long addr, int val) {
+        int offset = (int) addr & PAGE_MASK;
+        if (offset <= PAGE_SIZE - 2 && addr >= 0 && addr + 2 <= size) {
+            byte[] page = touchPage(addr);
+            page[offset] = (byte) val;
+            page[offset + 1] = (byte) (val >>> 8);
+            return;
+        }
+        writeByte(addr, val);
+        writeByte(addr + 1, val >>> 8);
+    }
+
+    public void writeDoubleWord(long addr, int val) {
+        writeWord(addr, val);
+        writeWord(addr + 2, val >>> 16);
+    }
+
+    @Override
+    public int readByte(int addr) {
+        return readByte(addr & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int readWord(int addr) {
+        return readWord(addr & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void writeByte(int addr, int val) {
+        writeByte(addr & 0xFFFFFFFFL, val);
+    }
+
+    @Override
+    public void writeWord(int addr, int val) {
+        writeWord(addr & 0xFFFFFFFFL, val);
+    }
+
+    @Override
+    public void putAddress(int address, DataBus dataBus) {
+        long addr = address & 0xFFFFFFFFL;
+        switch (dataBus.getMode()) {
+            case MemoryAccessor.READ:
+                switch (dataBus.getDataWidth()) {
+                    case MemoryAccessor.BYTE8:
+                        dataBus.writeData(readDoubleWord(addr));
+                        dataBus.writeData2(readDoubleWord(addr + 4));
+                        break;
+                    case MemoryAccessor.BYTE4:
+                        dataBus.writeData(readDoubleWord(addr));
+                        break;
+                    case MemoryAccessor.BYTE2:
+                        dataBus.writeData(readWord(addr));
+                        break;
+                    case MemoryAccessor.BYTE1:
+                        dataBus.writeData(readByte(addr));
+                        break;
+                }
+                break;
+            case MemoryAccessor.WRITE:
+                switch (dataBus.getDataWidth()) {
+                    case MemoryAccessor.BYTE8:
+                        writeDoubleWord(addr, dataBus.readData());
+                        writeDoubleWord(addr + 4, dataBus.readData2());
+                        break;
+                    case MemoryAccessor.BYTE4:
+                        writeDoubleWord(addr, dataBus.readData());
+                        break;
+                    case MemoryAccessor.BYTE2:
+                        writeWord(addr, dataBus.readData());
+                        break;
+                    case MemoryAccessor.BYTE1:
+                        writeByte(addr, dataBus.readData());
+                        break;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -32,6 +32,13 @@ public abstract class AbstractInstruction implements Instruction, Cloneable{
         saveRaw(raw, length);
     }
 
+    /**
+     * Resets the decoded state, so that the instruction record could be decoded again.
+     */
+    protected void reset(){
+        length = 0;
+    }
+
     protected void setLength(int len) {
         length = len;
     }
@@ -49,7 +56,9 @@ public abstract class AbstractInstruction implements Instruction, Cloneable{
 
 
     protected void saveRaw(int[] raw, int length) {
-        rawData =  new int[length];
+        // Keep the buffer of a reused instruction record if it is large enough
+        if(rawData==null || rawData.length<length)
+            rawData =  new int[Math.max(length, raw.length)];
         for(int i=0; i<length; i++){
             rawData[i] = raw[i];
         }
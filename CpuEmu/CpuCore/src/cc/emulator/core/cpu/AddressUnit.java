@@ -25,5 +25,18 @@ public interface AddressUnit {
      */
     public int getAddr(final int off);
 
+    /**
+     * Gets the absolute address from the linear base address of a segment (see
+     * {@link cc.emulator.core.cpu.register.SegmentRegister#getBase()}) and an offset,
+     * wrapped around the address space.
+     *
+     * @param base
+     *            the linear base address of the segment
+     * @param off
+     *            the offset
+     * @return the value
+     */
+    public int getLinearAddr(final int base, final int off);
+
     void reset();
 }
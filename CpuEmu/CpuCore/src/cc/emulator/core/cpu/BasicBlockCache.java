@@ -0,0 +1,181 @@
+package cc.emulator.core.cpu;
+
+/**
+ * Decoded basic block cache, keyed by physical address.
+ *
+ * A block is a straight-line run of decoded instructions, it grows while the instructions are
+ * executed one after another and ends at the first control transfer (or at the end of a page).
+ * While a block is being executed, the next instruction is found without any table lookup.
+ *
+ * The blocks are indexed by their start address in 4K pages. A write into a page invalidates
+ * all the blocks of the page, so self-modifying code stays correct.
+ *
+ * A block entered more than {@link #HOT_THRESHOLD} times is hot, and translated for direct
+ * execution by the CPU if a translator is set (see {@link BlockTranslator}). The translated
+ * block is dropped along with the block when its page is invalidated.
+ */
+public class BasicBlockCache implements ICache {
+    public static final int PAGE_SHIFT = 12;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    public static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * Max instructions of one block.
+     */
+    public static final int BLOCK_SIZE = 64;
+
+    /**
+     * Executions of a block before it is translated.
+     */
+    public static final int HOT_THRESHOLD = 50;
+
+    static class Block {
+        final int address;
+        final Instruction instructions[] = new Instruction[BLOCK_SIZE];
+        final int addresses[] = new int[BLOCK_SIZE];
+        int count = 0;
+        // Physical address following the last instruction
+        int nextAddress;
+        // Times the block has been entered
+        int executions = 0;
+        TranslatedBlock translated;
+        // Instructions of the block when it was last translated, or tried to
+        int translatedCount = 0;
+
+        Block(int address) {
+            this.address = address;
+            this.nextAddress = address;
+        }
+
+        boolean isFull() {
+            return count == BLOCK_SIZE;
+        }
+
+        void add(int address, Instruction instruction) {
+            addresses[count] = address;
+            instructions[count] = instruction;
+            count++;
+            nextAddress = address + instruction.getLength();
+        }
+    }
+
+    // Blocks indexed by page and start address in the page, a page is null if no code cached in it
+    Block pages[][];
+
+    // Block being executed, and the index of its next instruction
+    Block current;
+    int currentIndex;
+
+    // Block to append the newly decoded instructions to
+    Block building;
+
+    int modCount = 0;
+
+    BlockTranslator translator;
+
+    public BasicBlockCache(int memorySize) {
+        pages = new Block[(memorySize + PAGE_MASK) >>> PAGE_SHIFT][];
+    }
+
+    /**
+     * Sets the translator of the hot blocks, none by default.
+     *
+     * @param translator the translator, or null
+     */
+    public void setTranslator(BlockTranslator translator) {
+        this.translator = translator;
+    }
+
+    @Override
+    public Instruction lookup(int address) {
+        // Fast path, the next instruction of the current block
+        if (current != null && currentIndex < current.count && current.addresses[currentIndex] == address)
+            return current.instructions[currentIndex++];
+
+        int page = address >>> PAGE_SHIFT;
+        if (page < pages.length && pages[page] != null) {
+            Block block = pages[page][address & PAGE_MASK];
+            if (block != null) {
+                block.executions++;
+                current = block;
+                currentIndex = 1;
+                return block.instructions[0];
+            }
+        }
+
+        current = null;
+        return null;
+    }
+
+    @Override
+    public void put(int address, Instruction instruction) {
+        int page = address >>> PAGE_SHIFT;
+        // Only cache the instructions inside a page
+        if (page >= pages.length || page != (address + instruction.getLength() - 1) >>> PAGE_SHIFT) {
+            building = null;
+            return;
+        }
+
+        if (building == null || building.nextAddress != address || building.isFull()
+                || building.address >>> PAGE_SHIFT != page) {
+            // Control transferred (or block full, or next page), start a new block
+            if (pages[page] == null)
+                pages[page] = new Block[PAGE_SIZE];
+            building = new Block(address);
+            pages[page][address & PAGE_MASK] = building;
+        }
+        building.add(address, instruction);
+
+        current = building;
+        currentIndex = building.count;
+    }
+
+    @Override
+    public TranslatedBlock lookupTranslated(int address) {
+        int page = address >>> PAGE_SHIFT;
+        if (translator == null || page >= pages.length || pages[page] == null)
+            return null;
+
+        Block block = pages[page][address & PAGE_MASK];
+        if (block == null || block.executions < HOT_THRESHOLD)
+            return null;
+
+        if (block.translatedCount != block.count) {
+            // Hot, (re)translate it as it is now
+            block.translated = translator.translate(address, block.instructions, block.addresses, block.count);
+            block.translatedCount = block.count;
+        }
+        return block.translated;
+    }
+
+    @Override
+    public int getModCount() {
+        return modCount;
+    }
+
+    @Override
+    public void invalidate(int address, int length) {
+        int first = address >>> PAGE_SHIFT;
+        int last = (address + length - 1) >>> PAGE_SHIFT;
+        for (int page = first; page <= last && page < pages.length; page++) {
+            if (pages[page] == null)
+                continue;
+
+            pages[page] = null;
+            modCount++;
+            if (current != null && current.address >>> PAGE_SHIFT == page)
+                current = null;
+            if (building != null && building.address >>> PAGE_SHIFT == page)
+                building = null;
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (int page = 0; page < pages.length; page++)
+            pages[page] = null;
+        current = null;
+        building = null;
+        modCount++;
+    }
+}
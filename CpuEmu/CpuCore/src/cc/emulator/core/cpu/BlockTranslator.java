@@ -0,0 +1,17 @@
+package cc.emulator.core.cpu;
+
+/**
+ * Translator of the hot basic blocks, see {@link BasicBlockCache#setTranslator(BlockTranslator)}.
+ */
+public interface BlockTranslator {
+    /**
+     * Translates a block of decoded instructions.
+     *
+     * @param address      the physical address of the block
+     * @param instructions the decoded instructions
+     * @param addresses    the physical address of each instruction
+     * @param count        the number of instructions
+     * @return the translated block, or null if the block could not be translated
+     */
+    TranslatedBlock translate(int address, Instruction instructions[], int addresses[], int count);
+}
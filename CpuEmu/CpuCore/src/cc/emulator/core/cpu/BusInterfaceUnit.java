@@ -20,6 +20,12 @@ public interface BusInterfaceUnit {
     void reset();
 
     void fetchInstructions(MemoryAccessor memoryAccessor, MemoryLocator instructionLocator);
+
+    /**
+     * Flushes the prefetched instruction bytes, on each control transfer, interrupt or code
+     * segment load of the execution unit. The next fetch starts from the new address.
+     */
+    void flushInstructionQueue();
     void fetchInstructions(MemoryAccessor memoryAccessor, MemoryLocator instructionLocator, int offset, InstructionQueue instructionQueue);
 
     int currentAddress(MemoryAccessor memoryAccessor, MemoryLocator instructionLocator);
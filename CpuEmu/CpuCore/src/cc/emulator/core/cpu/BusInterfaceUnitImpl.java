@@ -54,6 +54,11 @@ public abstract class BusInterfaceUnitImpl implements BusInterfaceUnit {
         return instructionQueue;
     }
 
+    @Override
+    public void flushInstructionQueue() {
+        instructionQueue.reset();
+    }
+
     @Override
     public void reset() {
         addressUnit.reset();
@@ -5,4 +5,16 @@ package cc.emulator.core.cpu;
  * Date: 2017/7/27.
  */
 public interface Cache {
+    /**
+     * Invalidates the cached entries overlapping the physical address range, e.g. after it has been written.
+     *
+     * @param address the first physical address
+     * @param length  the number of bytes
+     */
+    void invalidate(int address, int length);
+
+    /**
+     * Invalidates all the cached entries.
+     */
+    void flush();
 }
@@ -1,9 +1,11 @@
 package cc.emulator.core.cpu;
 
+import cc.emulator.core.EventScheduler;
 import cc.emulator.core.ProgrammableInterruptController;
 import cc.emulator.core.ProgrammableIntervalTimer;
 import cc.emulator.core.MemoryManager;
 import cc.emulator.core.Peripheral;
+import cc.emulator.core.cpu.register.GeneralRegister;
 import cc.emulator.core.cpu.register.PointerIndexer;
 import cc.emulator.core.cpu.register.ProgramCounter;
 import cc.emulator.core.cpu.register.SegmentRegister;
@@ -50,6 +52,49 @@ public abstract class Cpu {
         while (tick());
     }
 
+    /**
+     * Copies the register state of another CPU of the same kind, e.g. to run a fork of a
+     * booted machine on a fork of its memory (see {@link MemoryManager#fork()}).
+     *
+     * @param source
+     *            the CPU to copy from
+     */
+    public void copyRegisters(Cpu source) {
+        GeneralRegister[] registers = getExecutionUnit().getGeneralRegisters();
+        GeneralRegister[] sourceRegisters = source.getExecutionUnit().getGeneralRegisters();
+        for (int i = 0; i < registers.length; i++)
+            registers[i].setData(sourceRegisters[i].getData());
+
+        PointerIndexer[] indexers = getPointerIndexers();
+        PointerIndexer[] sourceIndexers = source.getPointerIndexers();
+        for (int i = 0; i < indexers.length; i++)
+            indexers[i].setData(sourceIndexers[i].getData());
+
+        SegmentRegister[] segments = getSegmentRegisters();
+        SegmentRegister[] sourceSegments = source.getSegmentRegisters();
+        for (int i = 0; i < segments.length; i++)
+            segments[i].setData(sourceSegments[i].getData());
+
+        getStatusRegister().setData(source.getStatusRegister().getData());
+        getProgramCounter().setData(source.getProgramCounter().getData());
+        busInterfaceUnit.flushInstructionQueue();
+    }
+
+    /**
+     * Copies the whole state of another CPU of the same kind, e.g. to run a fork of a
+     * booted machine: the registers, the state of the execution unit and the time of the
+     * virtual clock. The events scheduled are not copied, the devices of the fork schedule
+     * their own once given the clock.
+     *
+     * @param source
+     *            the CPU to copy from
+     */
+    public void copyState(Cpu source) {
+        copyRegisters(source);
+        executionUnit.copyState(source.getExecutionUnit());
+        scheduler.setTime(source.getScheduler().getTime());
+    }
+
     /**
      * Resets the CPU to its default state.
      */
@@ -64,6 +109,13 @@ public abstract class Cpu {
      * @return true if instructions remain, false otherwise
      */
     public boolean tick() {
+        // Halted, only an interrupt resumes the execution.
+        if (executionUnit.isHalted()) {
+            executionUnit.tryExternalMaskabkeInterrupts(pic);
+            if (executionUnit.isHalted())
+                return executionUnit.waitInterrupt(pic);
+        }
+
         // Single-step mode.
         executionUnit.trySingleStepMode();
         // External maskable interrupts.
@@ -102,6 +154,33 @@ public abstract class Cpu {
         instructionLocator =  createInstructionLocator();
         //dataLocator =  createDataLocator();
         executionUnit = createEU();
+        executionUnit.setScheduler(scheduler);
+
+        iCache = createICache();
+        if(iCache!=null)
+            memoryManager.addCache(iCache);
+    }
+
+    // Virtual clock of the machine, the devices schedule their events on it
+    protected final EventScheduler scheduler = new EventScheduler();
+
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
+    protected ICache iCache;
+
+    /**
+     * Creates the decoded instruction cache, no cache by default.
+     *
+     * @return the instruction cache, or null
+     */
+    protected ICache createICache() {
+        return null;
+    }
+
+    public ICache getICache() {
+        return iCache;
     }
 
     protected abstract MemoryLocator createInstructionLocator();
@@ -125,11 +204,19 @@ public abstract class Cpu {
         executionUnit.setPeripherals(peripherals);
     }
 
+    public void setOpenBus(Peripheral openBus) {
+        executionUnit.setOpenBus(openBus);
+    }
+
     protected ProgrammableInterruptController pic;
     public void setPic(ProgrammableInterruptController pic) {
         this.pic = pic;
         executionUnit.setPic(pic);
     }
+
+    public ProgrammableInterruptController getPic() {
+        return pic;
+    }
     protected ProgrammableIntervalTimer pit;
 
     public void setPit(ProgrammableIntervalTimer pit) {
@@ -138,11 +225,30 @@ public abstract class Cpu {
     }
 
     protected boolean pipelineExecute() {
-        // Bus Unit to fetch instruction from memory
-        fetchRawInstructions();
+        // Hot block translated, run it as a whole
+        if(translationEnabled && iCache!=null && !executionUnit.isStepMode()) {
+            TranslatedBlock block = iCache.lookupTranslated(currentAddress());
+            if(block!=null)
+                return executeTranslated(block);
+        }
+
+        return interpretInstruction();
+    }
 
-        // Instruction unit to decode the instruction from the raw instruction queue
-        decodeInstruction();
+    /**
+     * Fetches, decodes and executes one instruction by the interpreter.
+     *
+     * @return true if instructions remain, false otherwise
+     */
+    protected boolean interpretInstruction() {
+        // Decoded instruction cache, skips fetch and decode on hit
+        if(!lookupInstruction()) {
+            // Bus Unit to fetch instruction from memory
+            fetchRawInstructions();
+
+            // Instruction unit to decode the instruction from the raw instruction queue
+            decodeInstruction();
+        }
 
         // Fetch and exeute instruction
         return executeInstruction();
@@ -159,6 +265,40 @@ public abstract class Cpu {
         return true;
     }
 
+    /**
+     * Executes a translated block. Between two instructions of the block, the block checks the
+     * single step and external interrupts as {@link #tick()} does. When the block is left, the
+     * next instruction is executed by the interpreter.
+     *
+     * @param block the translated block
+     * @return true if instructions remain, false otherwise
+     */
+    protected boolean executeTranslated(TranslatedBlock block) {
+        int next = block.run();
+        if(next<0)
+            return false;
+        if(next<block.getCount()) {
+            // Left the block, continue with the interpreter
+            return interpretInstruction();
+        }
+        return true;
+    }
+
+    /**
+     * Whether hot blocks are run as translated blocks, by default set by the system property
+     * "cc.emulator.cpu.translation". Turn it off to debug instruction by instruction, the
+     * interpreter then runs all the code.
+     */
+    protected boolean translationEnabled = Boolean.getBoolean("cc.emulator.cpu.translation");
+
+    public boolean isTranslationEnabled() {
+        return translationEnabled;
+    }
+
+    public void setTranslationEnabled(boolean translationEnabled) {
+        this.translationEnabled = translationEnabled;
+    }
+
     protected Instruction fetchInstruction() {
         return instructionUnit.nextInstruction();
     }
@@ -181,11 +321,42 @@ public abstract class Cpu {
     }
 
 
+    /**
+     * Looks up the instruction at the current address in the instruction cache, and passes
+     * it to the decoded instruction queue on hit.
+     *
+     * @return true if the instruction is cached, false otherwise
+     */
+    protected boolean lookupInstruction() {
+        if(iCache==null)
+            return false;
+
+        Instruction instruction = iCache.lookup(currentAddress());
+        if(instruction==null)
+            return false;
+
+        try {
+            instructionUnit.getDecodedInstructionQueue().fill(instruction);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        instructionLocator.incOffset(instruction.getLength());
+
+        return true;
+    }
+
     protected Instruction decodeInstruction() {
+        int address = currentAddress();
         // Current instruction decoded
         Instruction instruction = instructionUnit.decode(busInterfaceUnit.getInstructionQueue());
 
         if(instruction!=null) {
+            // The decoded instruction may be a reused record, cache a copy of it
+            if(iCache!=null) {
+                iCache.put(address, (Instruction) instruction.clone());
+                memoryManager.markCode(address);
+            }
+
             instructionLocator.incOffset(instruction.getLength());
         }
 
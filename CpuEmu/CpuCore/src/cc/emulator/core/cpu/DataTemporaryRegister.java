@@ -12,6 +12,17 @@ public class DataTemporaryRegister extends GeneralRegister implements  DataListe
         super(name, dataWidth);
     }
 
+    /**
+     * Latches the data read by the direct access path, which bypasses the data bus.
+     *
+     * @param data the data read
+     * @return the data
+     */
+    public int latch(int data) {
+        this.data = data;
+        return data;
+    }
+
     @Override
     public void dataReady(DataBus dataBus) {
         int w = dataBus.getDataWidth();
@@ -1,5 +1,6 @@
 package cc.emulator.core.cpu;
 
+import cc.emulator.core.EventScheduler;
 import cc.emulator.core.Peripheral;
 import cc.emulator.core.ProgrammableInterruptController;
 import cc.emulator.core.ProgrammableIntervalTimer;
@@ -27,12 +28,41 @@ public interface ExecutionUnit {
 
     void tryExternalMaskabkeInterrupts(ProgrammableInterruptController pic);
 
+    /**
+     * Returns if the unit is halted (HLT), till an interrupt is taken.
+     */
+    boolean isHalted();
+
+    /**
+     * Waits for an interrupt while halted, with no host time spent: the virtual clock jumps
+     * to the next device event, which might raise one.
+     *
+     * @param pic
+     *            the interrupt controller
+     * @return false if no interrupt could ever end the halt state, or the thread waiting was
+     *         interrupted, true otherwise
+     */
+    boolean waitInterrupt(ProgrammableInterruptController pic);
+
+    /**
+     * Copies the state of another unit of the same kind besides its registers, e.g. the
+     * halt state and the cycles not yet accounted.
+     *
+     * @param source
+     *            the unit to copy from
+     */
+    void copyState(ExecutionUnit source);
+
     void setPic(ProgrammableInterruptController pic);
 
     void setPit(ProgrammableIntervalTimer pit);
 
+    void setScheduler(EventScheduler scheduler);
+
     void setPeripherals(Peripheral[] peripherals);
 
+    void setOpenBus(Peripheral openBus);
+
     void toggleStep();
 
     boolean isStepMode();
@@ -1,5 +1,7 @@
 package cc.emulator.core.cpu;
 
+import cc.emulator.core.EventScheduler;
+import cc.emulator.core.OpenBus;
 import cc.emulator.core.Peripheral;
 import cc.emulator.core.ProgrammableInterruptController;
 import cc.emulator.core.ProgrammableIntervalTimer;
@@ -7,6 +9,8 @@ import cc.emulator.core.cpu.register.GeneralRegister;
 import cc.emulator.core.cpu.register.PointerIndexer;
 import cc.emulator.core.cpu.register.StatusRegister;
 
+import java.util.Arrays;
+
 /**
  * @author Shao Bofeng
  * Date: 2017/7/27.
@@ -19,14 +23,22 @@ public abstract class ExecutionUnitImpl implements ExecutionUnit{
     StatusRegister statusRegister;
     private ProgrammableInterruptController pic;
     protected ProgrammableIntervalTimer pit;
+    protected EventScheduler scheduler;
     protected Peripheral[] peripherals;
     protected Stack stack;
 
+    public static final int PORT_COUNT = 0x10000;
+
+    // Peripheral connected to each I/O port, the open bus if none
+    protected final Peripheral[] ports = new Peripheral[PORT_COUNT];
+    protected Peripheral openBus = new OpenBus(0);
+
     public ExecutionUnitImpl(){
         generalRegisters=createGeneralRegisters();
         statusRegister=createStatusRegister();
         alu=createALU(statusRegister);
         pointerIndexers=createPointerIndexers();
+        Arrays.fill(ports, openBus);
     }
 
     @Override
@@ -90,9 +102,42 @@ public abstract class ExecutionUnitImpl implements ExecutionUnit{
         this.pit = pit;
     }
 
+    @Override
+    public void setScheduler(EventScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
 
     @Override
     public void setPeripherals(Peripheral[] peripherals) {
         this.peripherals = peripherals;
+        mapPorts();
+    }
+
+    /**
+     * Sets the handler of the ports no peripheral is connected to.
+     */
+    @Override
+    public void setOpenBus(Peripheral openBus) {
+        this.openBus = openBus;
+        mapPorts();
+    }
+
+    /**
+     * Builds the port table, so that an I/O access finds its peripheral by the port alone.
+     * A port shared by several peripherals goes to the first one, as listed.
+     */
+    protected void mapPorts() {
+        for (int port = 0; port < PORT_COUNT; port++) {
+            ports[port] = openBus;
+            if (peripherals == null)
+                continue;
+            for (final Peripheral peripheral : peripherals) {
+                if (peripheral.isConnected(port)) {
+                    ports[port] = peripheral;
+                    break;
+                }
+            }
+        }
     }
 }
@@ -1,8 +1,41 @@
 package cc.emulator.core.cpu;
 
 /**
+ * Instruction cache, holding the already decoded instructions by physical address.
+ *
  * @author Shao Yongqing
  * Date: 2017/7/27.
  */
 public interface ICache extends Cache{
+    /**
+     * Looks up the decoded instruction at the physical address.
+     *
+     * @param address the physical address of the instruction
+     * @return the decoded instruction, or null if not cached
+     */
+    Instruction lookup(int address);
+
+    /**
+     * Puts a decoded instruction to the cache. The instruction must not be changed afterwards.
+     *
+     * @param address     the physical address of the instruction
+     * @param instruction the decoded instruction
+     */
+    void put(int address, Instruction instruction);
+
+    /**
+     * Looks up the translated (hot) block starting at the physical address.
+     *
+     * @param address the physical address of the block
+     * @return the translated block, or null if none
+     */
+    TranslatedBlock lookupTranslated(int address);
+
+    /**
+     * Gets the number of invalidations, changed whenever cached instructions are dropped,
+     * e.g. to detect self-modifying code while running a translated block.
+     *
+     * @return the modification count
+     */
+    int getModCount();
 }
@@ -0,0 +1,42 @@
+package cc.emulator.core.cpu;
+
+/**
+ * A ring of preallocated, mutable instruction records cloned from one instruction template.
+ *
+ * A decoder in reuse mode obtains a record from the pool and decodes into it instead of
+ * cloning the template for every instruction. A record is handed out again after
+ * <code>size</code> further obtains, so the pool must be larger than the number of decoded
+ * instructions which can be alive at the same time (e.g. the decoded instruction queue).
+ */
+public class InstructionPool {
+    AbstractInstruction template;
+    AbstractInstruction slots[];
+    int next = 0;
+
+    public InstructionPool(AbstractInstruction template, int size){
+        this.template = template;
+        slots = new AbstractInstruction[size];
+    }
+
+    public AbstractInstruction getTemplate() {
+        return template;
+    }
+
+    /**
+     * Obtains the next record of the ring, reset to the template state.
+     *
+     * @return the instruction record to decode into
+     */
+    public AbstractInstruction obtain(){
+        AbstractInstruction slot = slots[next];
+        if(slot==null){
+            slot = (AbstractInstruction) template.clone();
+            slots[next] = slot;
+        } else {
+            slot.reset();
+        }
+        next = (next + 1) % slots.length;
+
+        return slot;
+    }
+}
@@ -1,5 +1,6 @@
 package cc.emulator.core.cpu;
 
+import cc.emulator.core.MemoryManager;
 import cc.emulator.core.cpu.bus.DataBus;
 import cc.emulator.core.cpu.bus.AddressBus;
 
@@ -28,10 +29,35 @@ public abstract class MemoryAccessor {
     public static final int   READ     = 0b0;
     public static final int   WRITE    = 0b1;
 
+    /**
+     * The physical memory behind the address bus, for the direct access path.
+     */
+    MemoryManager memoryManager;
+
     public MemoryAccessor(AddressBus addressBus, DataBus dataBus){
         dataTemporaryRegister = createDataRegister();
         this.dataBus = dataBus;
         this.addressBus = addressBus;
+        if(addressBus instanceof MemoryManager)
+            memoryManager = (MemoryManager) addressBus;
+    }
+
+    /**
+     * Returns if the bytes and words at an address could be accessed straight on the physical
+     * memory, instead of the data bus/address bus protocol, as nobody listens to its page.
+     */
+    private boolean isDirect(final int w, final int addr) {
+        return memoryManager != null && !memoryManager.isListened(addr, 1 << w);
+    }
+
+    /**
+     * Gets the physical memory for the bulk operations (e.g. the repeated string instructions).
+     * The caller checks that its ranges are not listened, see {@link MemoryManager#isListened(int, int)}.
+     *
+     * @return the memory manager, or null if the accesses must go through the bus
+     */
+    public MemoryManager getDirectMemory() {
+        return memoryManager;
     }
 
 
@@ -47,6 +73,16 @@ public abstract class MemoryAccessor {
      * @return the value
      */
     public int getMem(final int w, final int addr) {
+        if (isDirect(w, addr)) {
+            // Direct access path
+            switch (w) {
+                case BYTE1:
+                    return dataTemporaryRegister.latch(memoryManager.readByte(addr));
+                case BYTE2:
+                    return dataTemporaryRegister.latch(memoryManager.readWord(addr));
+            }
+        }
+
         // Set data width, 1, 2, 4, 8 bytes respectively
         dataBus.setDataWidth(w);
         dataBus.setMode(READ);
@@ -77,10 +113,18 @@ public abstract class MemoryAccessor {
      *            the new value
      */
     public void setMem(final int w, final int addr, final int val) {
-        // IBM BIOS and BASIC are ROM.
-        if (addr >= 0xf6000)
-            return;
-
+        // The ROM pages are protected by the memory map of the memory manager
+        if (isDirect(w, addr)) {
+            // Direct access path
+            switch (w) {
+                case BYTE1:
+                    memoryManager.writeByte(addr, val);
+                    return;
+                case BYTE2:
+                    memoryManager.writeWord(addr, val);
+                    return;
+            }
+        }
 
         // Set data width, 1, 2, 4, 8 bytes respectively
         dataBus.setDataWidth(w);
@@ -8,6 +8,11 @@ public interface MemoryLocator {
     int getBase();
     void setBase(int base);
 
+    /**
+     * Gets the linear base address of the segment, see {@link AddressUnit#getLinearAddr(int, int)}.
+     */
+    int getSegmentBase();
+
     int getOffset();
     void setOffset(int offset);
 
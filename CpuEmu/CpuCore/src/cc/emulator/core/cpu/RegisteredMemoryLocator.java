@@ -26,6 +26,11 @@ public class RegisteredMemoryLocator implements MemoryLocator{
         segmentRegister.setData(base);
     }
 
+    @Override
+    public int getSegmentBase() {
+        return segmentRegister.getBase();
+    }
+
     @Override
     public int getOffset() {
         return pointerIndexer.getData();
@@ -35,6 +35,13 @@ public abstract class Stack {
         return memoryLocator.getBase();
     }
 
+    /**
+     * Gets the linear base address of the stack segment.
+     */
+    public int getSsBase() {
+        return memoryLocator.getSegmentBase();
+    }
+
     public void setSs(int ss) {
         //this.ss.setData(ss);
         memoryLocator.setBase(ss);
@@ -71,7 +78,7 @@ public abstract class Stack {
     }
 
     private int getTopAddress() {
-        return addressUnit.getAddr(memoryLocator.getBase(), memoryLocator.getOffset()); // addressUnit.getAddr(ss.getData(), sp.getData());
+        return addressUnit.getLinearAddr(memoryLocator.getSegmentBase(), memoryLocator.getOffset()); // addressUnit.getAddr(ss.getData(), sp.getData());
     }
 
 
@@ -0,0 +1,35 @@
+package cc.emulator.core.cpu;
+
+/**
+ * A hot basic block translated for direct execution, e.g. into a generated JVM class (see
+ * {@link BlockTranslator}).
+ *
+ * The block is run from its first instruction by {@link #run()}. It is left as soon as the
+ * execution does not follow it any more (control transfer, interrupt or invalidated code), the
+ * instruction there is then executed by the interpreter.
+ */
+public abstract class TranslatedBlock {
+    protected final int address;
+    protected final int count;
+
+    protected TranslatedBlock(int address, int count) {
+        this.address = address;
+        this.count = count;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Runs the block.
+     *
+     * @return the index of the instruction the block is left at, {@link #getCount()} if the
+     *         block has been run through (or halted), or -1 if no instructions remain
+     */
+    public abstract int run();
+}
@@ -5,7 +5,51 @@ package cc.emulator.core.cpu.register;
  * Date: 2017/7/27.
  */
 public class SegmentRegister extends RegisterImpl {
+    /**
+     * The linear base address of the segment, cached when the segment register is loaded.
+     */
+    protected int base;
+
     public SegmentRegister(String name, int dataWidth) {
         super(name, dataWidth);
     }
+
+    /**
+     * Computes the linear base address of a segment, the selector shifted by 4 bits in the
+     * real mode. A protected mode CPU overrides it to take the base from the descriptor cache,
+     * or sets it with {@link #setBase(int)} when the descriptor is loaded.
+     *
+     * @param selector
+     *            the segment selector
+     * @return the linear base address
+     */
+    protected int computeBase(int selector) {
+        return selector << 4;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    public void setBase(int base) {
+        this.base = base;
+    }
+
+    @Override
+    public void setData(int v) {
+        super.setData(v);
+        base = computeBase(data);
+    }
+
+    @Override
+    public void setData(long v) {
+        super.setData(v);
+        base = computeBase(data);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        base = computeBase(data);
+    }
 }
@@ -0,0 +1,24 @@
+package cc.emulator.core.cpu.translation;
+
+/**
+ * Class loader of a generated class. Each translated block gets its own loader, so the class
+ * is unloaded once the block is invalidated and no longer referenced.
+ */
+public class BlockClassLoader extends ClassLoader {
+    public BlockClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Defines a generated class.
+     *
+     * @param name
+     *            the binary name of the class, e.g. "a.b.C"
+     * @param bytes
+     *            the class file
+     * @return the class
+     */
+    public Class<?> define(String name, byte[] bytes) {
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,292 @@
+package cc.emulator.core.cpu.translation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Minimal writer of JVM class files, enough to generate the classes of the translated blocks.
+ *
+ * The classes are written in version 49 (Java 5), which is verified by type inference, so no
+ * stack map frames are needed. The caller gives the max stack and locals of each method.
+ */
+public class ClassFileWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_FINAL  = 0x0010;
+    public static final int ACC_SUPER  = 0x0020;
+
+    // Opcodes used by the translators
+    public static final int ICONST_M1     = 0x02;
+    public static final int ICONST_0      = 0x03;
+    public static final int BIPUSH        = 0x10;
+    public static final int SIPUSH        = 0x11;
+    public static final int LDC_W         = 0x13;
+    public static final int ILOAD         = 0x15;
+    public static final int ALOAD         = 0x19;
+    public static final int IALOAD        = 0x2e;
+    public static final int ISTORE        = 0x36;
+    public static final int ASTORE        = 0x3a;
+    public static final int IASTORE       = 0x4f;
+    public static final int POP           = 0x57;
+    public static final int ISHL          = 0x78;
+    public static final int ISHR          = 0x7a;
+    public static final int IAND          = 0x7e;
+    public static final int IOR           = 0x80;
+    public static final int IFEQ          = 0x99;
+    public static final int IFNE          = 0x9a;
+    public static final int IRETURN       = 0xac;
+    public static final int RETURN        = 0xb1;
+    public static final int GETFIELD      = 0xb4;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+    public static final int INVOKEINTERFACE = 0xb9;
+
+    private static final int CONSTANT_UTF8       = 1;
+    private static final int CONSTANT_INTEGER    = 3;
+    private static final int CONSTANT_CLASS      = 7;
+    private static final int CONSTANT_FIELDREF   = 9;
+    private static final int CONSTANT_METHODREF  = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final HashMap<String, Integer> constants = new HashMap<String, Integer>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final ArrayList<Method> methods = new ArrayList<Method>();
+
+    /**
+     * @param name
+     *            the internal name of the class, e.g. "a/b/C"
+     * @param superName
+     *            the internal name of the super class
+     */
+    public ClassFileWriter(String name, String superName) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    private int constant(String key, int tag, int... refs) {
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(tag);
+            for (int ref : refs)
+                pool.writeShort(ref);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+
+    public int utf8(String value) {
+        String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+
+    public int integer(int value) {
+        String key = "I" + value;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+
+    public int classRef(String name) {
+        return constant("C" + name, CONSTANT_CLASS, utf8(name));
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return constant("N" + name + ":" + descriptor, CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return constant("F" + owner + "." + name + ":" + descriptor, CONSTANT_FIELDREF,
+                classRef(owner), nameAndType(name, descriptor));
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return constant("M" + owner + "." + name + ":" + descriptor, CONSTANT_METHODREF,
+                classRef(owner), nameAndType(name, descriptor));
+    }
+
+    public int interfaceMethodRef(String owner, String name, String descriptor) {
+        return constant("J" + owner + "." + name + ":" + descriptor, CONSTANT_INTERFACE_METHODREF,
+                classRef(owner), nameAndType(name, descriptor));
+    }
+
+    /**
+     * Adds a method, its code is then emitted by the returned writer.
+     */
+    public Method addMethod(int access, String name, String descriptor, int maxStack, int maxLocals) {
+        Method method = new Method(access, utf8(name), utf8(descriptor), maxStack, maxLocals);
+        methods.add(method);
+        return method;
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            int codeName = utf8("Code");
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);      // interfaces
+            out.writeShort(0);      // fields
+            out.writeShort(methods.size());
+            for (Method method : methods) {
+                byte[] code = Arrays.copyOf(method.code, method.length);
+                out.writeShort(method.access);
+                out.writeShort(method.name);
+                out.writeShort(method.descriptor);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.writeInt(12 + code.length);
+                out.writeShort(method.maxStack);
+                out.writeShort(method.maxLocals);
+                out.writeInt(code.length);
+                out.write(code);
+                out.writeShort(0);  // exception table
+                out.writeShort(0);  // attributes
+            }
+            out.writeShort(0);      // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Code of a method, emitted instruction by instruction.
+     */
+    public class Method {
+        final int access;
+        final int name;
+        final int descriptor;
+        final int maxStack;
+        final int maxLocals;
+        byte[] code = new byte[256];
+        int length;
+
+        Method(int access, int name, int descriptor, int maxStack, int maxLocals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        private void write(int b) {
+            if (length == code.length)
+                code = Arrays.copyOf(code, length * 2);
+            code[length++] = (byte) b;
+        }
+
+        public void op(int opcode) {
+            write(opcode);
+        }
+
+        private void op2(int opcode, int operand) {
+            write(opcode);
+            write(operand >>> 8);
+            write(operand);
+        }
+
+        public void pushInt(int value) {
+            if (value >= -1 && value <= 5)
+                op(ICONST_0 + value);
+            else if (value == (byte) value) {
+                op(BIPUSH);
+                write(value);
+            } else if (value == (short) value)
+                op2(SIPUSH, value);
+            else
+                op2(LDC_W, integer(value));
+        }
+
+        /**
+         * Emits a load or store of a local variable, e.g. {@link #ILOAD} or {@link #ASTORE}.
+         */
+        public void local(int opcode, int local) {
+            op(opcode);
+            write(local);
+        }
+
+        public void getField(String owner, String name, String descriptor) {
+            op2(GETFIELD, fieldRef(owner, name, descriptor));
+        }
+
+        public void invokeVirtual(String owner, String name, String descriptor) {
+            op2(INVOKEVIRTUAL, methodRef(owner, name, descriptor));
+        }
+
+        public void invokeSpecial(String owner, String name, String descriptor) {
+            op2(INVOKESPECIAL, methodRef(owner, name, descriptor));
+        }
+
+        /**
+         * @param args
+         *            the number of the argument slots, the receiver included
+         */
+        public void invokeInterface(String owner, String name, String descriptor, int args) {
+            op2(INVOKEINTERFACE, interfaceMethodRef(owner, name, descriptor));
+            write(args);
+            write(0);
+        }
+
+        /**
+         * Emits a forward branch, to be bound by {@link #bind(int)}.
+         *
+         * @return the position of the branch
+         */
+        public int branch(int opcode) {
+            int position = length;
+            op2(opcode, 0);
+            return position;
+        }
+
+        /**
+         * Binds a forward branch to the current position.
+         */
+        public void bind(int branch) {
+            int offset = length - branch;
+            code[branch + 1] = (byte) (offset >>> 8);
+            code[branch + 2] = (byte) offset;
+        }
+
+        public int size() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package cc.emulator.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks {@link EventScheduler} against a plain list of the pending events, on random runs of
+ * schedules, reschedules, cancels and clock advances, some events rescheduling themselves when
+ * they fire as a periodic timer does. The events must fire in the order of their deadlines, each
+ * at its last deadline, never once cancelled, and the heap must stay ordered and indexed.
+ *
+ * Run with: java cc.emulator.core.EventSchedulerTest
+ */
+public class EventSchedulerTest {
+
+    class TestEvent extends ScheduledEvent {
+        final int id;
+        // Period to schedule itself again when fired, 0 for none
+        final long period;
+
+        TestEvent(int id, long period) {
+            this.id = id;
+            this.period = period;
+        }
+
+        @Override
+        public void fire(long now) {
+            Long deadline = pending.remove(this);
+            if (deadline == null)
+                fail("event " + id + " fired while not scheduled");
+            else if (deadline != getDeadline())
+                fail("event " + id + " fired at deadline " + getDeadline() + ", scheduled at " + deadline);
+            if (now < getDeadline())
+                fail("event " + id + " fired at " + now + " before its deadline " + getDeadline());
+            if (getDeadline() < lastFired)
+                fail("event " + id + " due at " + getDeadline() + " fired after an event due at " + lastFired);
+            if (isScheduled())
+                fail("event " + id + " still scheduled while fired");
+            lastFired = getDeadline();
+            fired++;
+
+            if (period > 0) {
+                scheduler.schedule(this, getDeadline() + period);
+                pending.put(this, getDeadline());
+            }
+        }
+    }
+
+    private final EventScheduler scheduler = new EventScheduler();
+    // The events scheduled, with their deadline, as the scheduler should hold them
+    private final Map<TestEvent, Long> pending = new HashMap<TestEvent, Long>();
+    private long lastFired;
+    private int fired;
+    private int failures;
+
+    public static void main(String[] args) {
+        EventSchedulerTest test = new EventSchedulerTest();
+        test.run(new Random(args.length > 0 ? Long.parseLong(args[0]) : 8253));
+        System.out.println(test.fired + " events fired, " + test.failures + " failures");
+        if (test.failures > 0)
+            System.exit(1);
+    }
+
+    void run(Random random) {
+        List<TestEvent> events = new ArrayList<TestEvent>();
+        for (int i = 0; i < 200; i++)
+            events.add(new TestEvent(i, i % 10 == 0 ? 1 + random.nextInt(500) : 0));
+
+        for (int step = 0; step < 200000; step++) {
+            TestEvent event = events.get(random.nextInt(events.size()));
+            int action = random.nextInt(10);
+            if (action < 5) {
+                // Schedule, or move if already scheduled, possibly at the current time
+                long deadline = scheduler.getTime() + random.nextInt(2000);
+                scheduler.schedule(event, deadline);
+                pending.put(event, deadline);
+            } else if (action < 7) {
+                scheduler.cancel(event);
+                pending.remove(event);
+            } else if (action < 9) {
+                lastFired = Long.MIN_VALUE;
+                scheduler.advance(random.nextInt(300));
+                verifyRun();
+            } else {
+                lastFired = Long.MIN_VALUE;
+                long next = expectedNextDeadline(Long.MAX_VALUE);
+                long from = scheduler.getTime();
+                long reached = scheduler.fastForward(from + random.nextInt(3000));
+                if (reached > next)
+                    fail("fast-forwarded to " + reached + " past the deadline " + next);
+                // Standing still, an event scheduled at the current time waits for the next advance
+                if (reached > from)
+                    verifyRun();
+            }
+            verify();
+        }
+
+        // Dropping the events, as for a fork
+        scheduler.setTime(scheduler.getTime());
+        pending.clear();
+        verify();
+    }
+
+    private long expectedNextDeadline(long none) {
+        long next = none;
+        for (long deadline : pending.values())
+            next = Math.min(next, deadline);
+        return next;
+    }
+
+    /** Checks that no event is left due once the clock moved. */
+    private void verifyRun() {
+        long next = expectedNextDeadline(Long.MAX_VALUE);
+        if (next <= scheduler.getTime())
+            fail("event due at " + next + " not run");
+    }
+
+    private void verify() {
+        long next = expectedNextDeadline(Long.MAX_VALUE);
+        if (scheduler.getNextDeadline() != next)
+            fail("next deadline " + scheduler.getNextDeadline() + ", expected " + next);
+        if (scheduler.count != pending.size())
+            fail(scheduler.count + " events in the heap, expected " + pending.size());
+
+        for (int i = 0; i < scheduler.count; i++) {
+            ScheduledEvent event = scheduler.heap[i];
+            if (event.index != i)
+                fail("event at " + i + " indexed " + event.index);
+            if (i > 0 && scheduler.heap[(i - 1) >>> 1].deadline > event.deadline)
+                fail("heap order broken at " + i);
+            Long deadline = pending.get(event);
+            if (deadline == null || deadline != event.getDeadline() || !event.isScheduled())
+                fail("event " + ((TestEvent) event).id + " in the heap at " + event.getDeadline()
+                        + ", expected " + deadline);
+        }
+    }
+
+    private void fail(String message) {
+        if (failures++ < 10)
+            System.out.println("FAILED at " + scheduler.getTime() + ": " + message);
+    }
+}
@@ -3,9 +3,7 @@ package cc.emulator.x86.i8086;
 import cc.emulator.x86.intel.ProgramStatusWord;
 import cc.emulator.core.cpu.ArithmeticLogicUnit;
 
-import static cc.emulator.x86.intel.ProgramStatusWord.AF;
-import static cc.emulator.x86.intel.ProgramStatusWord.CF;
-import static cc.emulator.x86.intel.ProgramStatusWord.OF;
+import static cc.emulator.x86.intel.ProgramStatusWord.*;
 
 
 public class ALU8086 implements ArithmeticLogicUnit {
@@ -101,10 +99,7 @@ public class ALU8086 implements ArithmeticLogicUnit {
         final int carry = (flags.hasFlag(CF)) ? 1 : 0;
         final int result = dst + src + carry & MASK[w];
 
-        flags.setFlag(CF, carry == 1 ? result <= dst : result < dst);
-        flags.setFlag(AF, ((result ^ dst ^ src) & AF) > 0);
-        flags.setFlag(OF, (shift((dst ^ src ^ -1) & (dst ^ result), 12 - BITS[w]) & OF) > 0);
-        flags.setFlags(w, result);
+        flags.setResult(OP_ADC, w, dst, src, result, carry);
 
         return result;
     }
@@ -144,10 +139,7 @@ public class ALU8086 implements ArithmeticLogicUnit {
     public int add(final int w, final int dst, final int src) {
         final int res = dst + src & MASK[w];
 
-        flags.setFlag(CF, res < dst);
-        flags.setFlag(AF, ((res ^ dst ^ src) & AF) > 0);
-        flags.setFlag(OF, (shift((dst ^ src ^ -1) & (dst ^ res), 12 - BITS[w]) & OF) > 0);
-        flags.setFlags(w, res);
+        flags.setResult(OP_ADD, w, dst, src, res, 0);
 
         return res;
     }
@@ -165,10 +157,7 @@ public class ALU8086 implements ArithmeticLogicUnit {
     public int sub(final int w, final int dst, final int src) {
         final int res = dst - src & MASK[w];
 
-        flags.setFlag(CF, dst < src);
-        flags.setFlag(AF, ((res ^ dst ^ src) & AF) > 0);
-        flags.setFlag(OF, (shift((dst ^ src) & (dst ^ res), 12 - BITS[w]) & OF) > 0);
-        flags.setFlags(w, res);
+        flags.setResult(OP_SUB, w, dst, src, res, 0);
 
         return res;
     }
@@ -187,10 +176,7 @@ public class ALU8086 implements ArithmeticLogicUnit {
         final int carry = flags.hasFlag(CF )? 1 : 0;
         final int res = dst - src - carry & MASK[w];
 
-        flags.setFlag(CF, carry > 0 ? dst <= src : dst < src);
-        flags.setFlag(AF, ((res ^ dst ^ src) & AF) > 0);
-        flags.setFlag(OF, (shift((dst ^ src) & (dst ^ res), 12 - BITS[w]) & OF) > 0);
-        flags.setFlags(w, res);
+        flags.setResult(OP_SBB, w, dst, src, res, carry);
 
         return res;
     }
@@ -206,9 +192,7 @@ public class ALU8086 implements ArithmeticLogicUnit {
     public int dec(final int w, final int dst) {
         final int res = dst - 1 & MASK[w];
 
-        flags.setFlag(AF, ((res ^ dst ^ 1) & AF) > 0);
-        flags.setFlag(OF, res == SIGN[w] - 1);
-        flags.setFlags(w, res);
+        flags.setResult(OP_DEC, w, dst, 1, res, 0);
 
         return res;
     }
@@ -224,9 +208,7 @@ public class ALU8086 implements ArithmeticLogicUnit {
     public int inc(final int w, final int dst) {
         final int res = dst + 1 & MASK[w];
 
-        flags.setFlag(AF, ((res ^ dst ^ 1) & AF) > 0);
-        flags.setFlag(OF, res == SIGN[w]);
-        flags.setFlags(w, res);
+        flags.setResult(OP_INC, w, dst, 1, res, 0);
 
         return res;
     }
@@ -239,8 +221,6 @@ public class ALU8086 implements ArithmeticLogicUnit {
      *            the result
      */
     public void logic(final int w, final int res) {
-        flags.setFlag(CF, false);
-        flags.setFlag(OF, false);
-        flags.setFlags(w, res);
+        flags.setResult(OP_LOGIC, w, 0, 0, res, 0);
     }
 }
@@ -9,6 +9,10 @@ import cc.emulator.x86.intel.IntelDataBus;
 import cc.emulator.x86.intel.IntelMemoryAccessor;
 
 public class BIU8086 extends BusInterfaceUnitImpl {
+    // Segment base the queued bytes are fetched from
+    private int queueBase;
+    // Code write count of the memory when the queued bytes were fetched
+    private int queueWrites;
 
     public BIU8086(MemoryManager mm, AddressUnit addressUnit) {
         super(mm, addressUnit);
@@ -52,15 +56,47 @@ public class BIU8086 extends BusInterfaceUnitImpl {
     }
 
 
+    /**
+     * Tops up the prefetch queue of the CPU. The bytes not consumed by the last instruction
+     * are kept, only the consumed ones are fetched again. The queue is emptied by the EU on
+     * control transfer, interrupt or CS load (see {@link #flushInstructionQueue()}), the
+     * fetch then starts from the new address.
+     *
+     * The queue checks itself against the memory: the pages of the fetched bytes are marked
+     * as code, and the queue is refilled if a code page has been written since, so the EU
+     * never runs stale bytes, e.g. of self-modifying code.
+     */
     @Override
     public void fetchInstructions(MemoryAccessor memoryAccessor, MemoryLocator instructionLocator) {
-        fetchInstructions( memoryAccessor,  instructionLocator, 0, instructionQueue);
+        InstructionQueue8086 queue = (InstructionQueue8086) instructionQueue;
+        int base = instructionLocator.getSegmentBase();
+        int ip = instructionLocator.getOffset();
+
+        int consumed = ip - queue.getAddress() & 0xffff;
+        int writes = memoryManager.getCodeWrites();
+        if (queue.getAddress() < 0 || base != queueBase || consumed > queue.getCount()
+                || writes != queueWrites) {
+            // Flushed, IP set from outside of the EU, or the queued bytes could be stale
+            queue.reset();
+            queue.setAddress(ip);
+            queueBase = base;
+            queueWrites = writes;
+        } else {
+            queue.consume(consumed);
+        }
+
+        AddressUnit au = getAddressUnit();
+        while (!queue.isFull()) {
+            int addr = au.getLinearAddr(base, queue.getAddress() + queue.getCount());
+            memoryManager.markCode(addr);
+            queue.fillInstructionQueue(memoryAccessor.getMem(Intel8086InstructionSet.B, addr));
+        }
     }
 
     @Override
     public void fetchInstructions(MemoryAccessor memoryAccessor, MemoryLocator instructionLocator, int offset, InstructionQueue instructionQueue) {
         // Fetch instruction from memory.
-        int seg = instructionLocator.getBase();
+        int base = instructionLocator.getSegmentBase();
         int ip = instructionLocator.getOffset();
 
         ip += offset;
@@ -69,7 +105,7 @@ public class BIU8086 extends BusInterfaceUnitImpl {
         instructionQueue.reset();
         AddressUnit au= getAddressUnit();
         for (int i = 0; i < instructionQueue.getQueueSize(); ++i) {
-            int addr = au.getAddr(seg, ip+i);
+            int addr = au.getLinearAddr(base, ip+i);
 //            if(! memoryAccessor.isValidAddress(addr))
 //                break;
             int val = memoryAccessor.getMem(Intel8086InstructionSet.B,addr);
@@ -82,10 +118,10 @@ public class BIU8086 extends BusInterfaceUnitImpl {
 
     @Override
     public int currentAddress(MemoryAccessor memoryAccessor, MemoryLocator instructionLocator){
-        int seg = instructionLocator.getBase();
+        int base = instructionLocator.getSegmentBase();
         int ip = instructionLocator.getOffset();
         AddressUnit au= getAddressUnit();
-        int addr = au.getAddr(seg, ip);
+        int addr = au.getLinearAddr(base, ip);
 
         return addr;
     }
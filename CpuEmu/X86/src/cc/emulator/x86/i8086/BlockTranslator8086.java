@@ -0,0 +1,359 @@
+package cc.emulator.x86.i8086;
+
+import cc.emulator.core.cpu.BlockTranslator;
+import cc.emulator.core.cpu.Instruction;
+import cc.emulator.core.cpu.TranslatedBlock;
+import cc.emulator.core.cpu.translation.BlockClassLoader;
+import cc.emulator.core.cpu.translation.ClassFileWriter;
+import cc.emulator.x86.intel.ProgramStatusWord;
+
+import static cc.emulator.core.cpu.translation.ClassFileWriter.*;
+
+/**
+ * Translates the hot basic blocks of the 8086 into JVM classes.
+ *
+ * Each block becomes a class extending {@link TranslatedBlock8086}, whose run() method holds
+ * the instructions of the block one after another. MOV, XCHG, INC/DEC, the ALU operations and
+ * the flag instructions are translated into bytecode on the register file; the flags are still
+ * set by the ALU, and the memory operands are still accessed, by the execution unit. The other
+ * instructions, e.g. the prefixed, string and control transfer ones, are handed back to the
+ * interpreter. The generated class is loaded by its own class loader, so it is unloaded once
+ * its block is invalidated.
+ */
+public class BlockTranslator8086 implements BlockTranslator, Intel8086InstructionSet {
+    private static final String BASE = "cc/emulator/x86/i8086/TranslatedBlock8086";
+    private static final String ALU = "cc/emulator/core/cpu/ArithmeticLogicUnit";
+    private static final String PSW = "cc/emulator/x86/intel/ProgramStatusWord";
+    private static final String CONSTRUCTOR =
+            "(Lcc/emulator/x86/i8086/Intel8086;[Lcc/emulator/core/cpu/Instruction;[II)V";
+    private static final String PACKAGE = "cc/emulator/x86/i8086/translated/";
+
+    // Local variables of run()
+    private static final int THIS = 0;
+    private static final int REGS = 1;
+    private static final int ALU_UNIT = 2;
+    private static final int RESULT = 3;
+    private static final int OPERAND = 4;
+    private static final int STATUS = 5;
+
+    private static final String[] ALU_OPERATIONS = {"add", "or", "adc", "sbb", "and", "sub", "xor", "sub"};
+    // Flags of CLC/STC, CLI/STI and CLD/STD
+    private static final int[] FLAG_OPERATIONS = {ProgramStatusWord.CF, ProgramStatusWord.IF, ProgramStatusWord.DF};
+
+    private final Intel8086 cpu;
+
+    public BlockTranslator8086(Intel8086 cpu) {
+        this.cpu = cpu;
+    }
+
+    @Override
+    public TranslatedBlock translate(int address, Instruction instructions[], int addresses[], int count) {
+        String name = PACKAGE + "Block" + Integer.toHexString(address).toUpperCase();
+        ClassFileWriter writer = new ClassFileWriter(name, BASE);
+
+        ClassFileWriter.Method constructor = writer.addMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR, 5, 5);
+        constructor.local(ALOAD, 0);
+        constructor.local(ALOAD, 1);
+        constructor.local(ALOAD, 2);
+        constructor.local(ALOAD, 3);
+        constructor.local(ILOAD, 4);
+        constructor.invokeSpecial(BASE, "<init>", CONSTRUCTOR);
+        constructor.op(RETURN);
+
+        ClassFileWriter.Method run = writer.addMethod(ACC_PUBLIC, "run", "()I", 8, 6);
+        run.local(ALOAD, THIS);
+        run.getField(BASE, "regs", "[I");
+        run.local(ASTORE, REGS);
+        run.local(ALOAD, THIS);
+        run.getField(BASE, "alu", "L" + ALU + ";");
+        run.local(ASTORE, ALU_UNIT);
+        run.local(ALOAD, THIS);
+        run.getField(BASE, "flags", "L" + PSW + ";");
+        run.local(ASTORE, STATUS);
+        for (int i = 0; i < count; i++) {
+            // Leave the block if the execution does not follow it
+            run.local(ALOAD, THIS);
+            run.pushInt(i);
+            run.invokeVirtual(BASE, "enter", "(I)Z");
+            int follows = run.branch(IFNE);
+            run.pushInt(i);
+            run.op(IRETURN);
+            run.bind(follows);
+
+            if (!translate(run, (Instruction8086) instructions[i]))
+                interpret(run, i, count);
+        }
+        run.pushInt(count);
+        run.op(IRETURN);
+
+        byte[] bytes = writer.toByteArray();
+        try {
+            Class<?> type = new BlockClassLoader(getClass().getClassLoader()).define(name.replace('/', '.'), bytes);
+            return (TranslatedBlock) type.getConstructor(Intel8086.class, Instruction[].class, int[].class, int.class)
+                    .newInstance(cpu, instructions, addresses, count);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to load the translated block " + name, e);
+        }
+    }
+
+    /**
+     * Emits an instruction left to the interpreter.
+     */
+    private void interpret(ClassFileWriter.Method run, int index, int count) {
+        run.local(ALOAD, THIS);
+        run.pushInt(index);
+        run.invokeVirtual(BASE, "interpret", "(I)Z");
+        int remains = run.branch(IFNE);
+        run.op(ICONST_M1);
+        run.op(IRETURN);
+        run.bind(remains);
+
+        run.local(ALOAD, THIS);
+        run.invokeVirtual(BASE, "isHalted", "()Z");
+        int running = run.branch(IFEQ);
+        run.pushInt(count);
+        run.op(IRETURN);
+        run.bind(running);
+    }
+
+    /**
+     * Emits the bytecode of an instruction, as {@link EU8086} executes it.
+     *
+     * @return true if translated, false if the instruction is left to the interpreter
+     */
+    private boolean translate(ClassFileWriter.Method run, Instruction8086 instruction) {
+        if (instruction.hasPrefix())
+            return false;
+
+        int op = instruction.op;
+        int w = instruction.w;
+        int reg = instruction.reg;
+        int clocks = instruction.getClocks();
+
+        if (op >= MOV_AL_IMMED8 && op <= MOV_DI_IMMED16) {
+            // MOV REG,IMMED
+            begin(run, instruction);
+            run.pushInt(instruction.getImmediate());
+            run.local(ISTORE, RESULT);
+            setReg(run, w, reg, RESULT);
+        } else if (op >= 0x88 && op <= 0x8b) {
+            // MOV REG/MEM,REG and MOV REG,REG/MEM
+            begin(run, instruction);
+            if (instruction.d == 0b0) {
+                getReg(run, w, reg);
+                run.local(ISTORE, RESULT);
+                setRM(run, instruction, RESULT);
+            } else {
+                getRM(run, instruction);
+                run.local(ISTORE, RESULT);
+                setReg(run, w, reg, RESULT);
+            }
+        } else if (op == MOV_REG8__MEM8_IMMED8 || op == MOV_REG16__MEM16_IMMED16) {
+            // MOV REG/MEM,IMMED
+            begin(run, instruction);
+            if (reg == 0b000) {
+                run.pushInt(instruction.immediate);
+                run.local(ISTORE, RESULT);
+                setRM(run, instruction, RESULT);
+            }
+        } else if (op >= INC_AX && op <= DEC_DI) {
+            // INC REG16, DEC REG16
+            begin(run, instruction);
+            run.local(ALOAD, ALU_UNIT);
+            run.pushInt(W);
+            getReg(run, W, reg);
+            run.invokeInterface(ALU, op <= INC_DI ? "inc" : "dec", "(II)I", 3);
+            run.local(ISTORE, RESULT);
+            setReg(run, W, reg, RESULT);
+        } else if (op >= XCHG_AX_CX && op <= XCHG_AX_DI) {
+            // XCHG AX,REG16
+            begin(run, instruction);
+            getReg(run, W, AX);
+            run.local(ISTORE, OPERAND);
+            getReg(run, W, reg);
+            run.local(ISTORE, RESULT);
+            setReg(run, W, AX, RESULT);
+            setReg(run, W, reg, OPERAND);
+        } else if (op < 0x40 && (op & 0b100) == 0) {
+            // ADD, OR, ADC, SBB, AND, SUB, XOR, CMP REG/MEM,REG and REG,REG/MEM
+            begin(run, instruction);
+            run.local(ALOAD, ALU_UNIT);
+            run.pushInt(w);
+            if (instruction.d == 0b0) {
+                getRM(run, instruction);
+                getReg(run, w, reg);
+                if (operate(run, op >>> 3))
+                    setRM(run, instruction, RESULT);
+            } else {
+                getReg(run, w, reg);
+                getRM(run, instruction);
+                if (operate(run, op >>> 3))
+                    setReg(run, w, reg, RESULT);
+            }
+        } else if (op < 0x40 && (op & 0b110) == 0b100) {
+            // ADD, OR, ADC, SBB, AND, SUB, XOR, CMP AL/AX,IMMED
+            begin(run, instruction);
+            run.local(ALOAD, ALU_UNIT);
+            run.pushInt(w);
+            getReg(run, w, AX);
+            run.pushInt(instruction.immediate);
+            if (operate(run, op >>> 3))
+                setReg(run, w, AX, RESULT);
+        } else if (op >= EXT_0X80 && op <= 0x83) {
+            // ADD, OR, ADC, SBB, AND, SUB, XOR, CMP REG/MEM,IMMED
+            int src = instruction.immediate;
+            // Perform sign extension if needed.
+            if (op == 0x83 && (src & 0x80) > 0)
+                src |= 0xff00;
+            begin(run, instruction);
+            run.local(ALOAD, ALU_UNIT);
+            run.pushInt(w);
+            getRM(run, instruction);
+            if ((reg == MOD_OR || reg == MOD_AND || reg == MOD_XOR) && op != 0x80 && op != 0x81) {
+                // Only the operand is read, as the interpreter does
+                run.op(POP);
+                run.op(POP);
+                run.op(POP);
+            } else {
+                run.pushInt(src);
+                if (operate(run, reg))
+                    setRM(run, instruction, RESULT);
+            }
+            boolean registers = instruction.mod == MOD_REGISTER_TO_REGISTER;
+            clocks = (registers ? 4 : 17) - (registers && reg == MOD_CMP ? 7 : 0);
+        } else if (op >= CLC && op <= STD) {
+            // CLC, STC, CLI, STI, CLD, STD
+            begin(run, instruction);
+            run.local(ALOAD, STATUS);
+            run.pushInt(FLAG_OPERATIONS[(op - CLC) >>> 1]);
+            run.invokeVirtual(PSW, (op & 0b1) == 0 ? "clearFlag" : "setFlag", "(I)V");
+            clocks = 2;
+        } else if (op == NOP) {
+            begin(run, instruction);
+            clocks = 3;
+        } else {
+            return false;
+        }
+
+        run.local(ALOAD, THIS);
+        run.pushInt(clocks);
+        run.invokeVirtual(BASE, "end", "(I)V");
+        return true;
+    }
+
+    private static void begin(ClassFileWriter.Method run, Instruction8086 instruction) {
+        run.local(ALOAD, THIS);
+        run.pushInt(instruction.getLength());
+        run.invokeVirtual(BASE, "begin", "(I)V");
+    }
+
+    /**
+     * Emits an ALU operation on the operands pushed.
+     *
+     * @param operation
+     *            the operation, in the order of the opcodes: ADD, OR, ADC, SBB, AND, SUB, XOR, CMP
+     * @return true if the result is in the local {@link #RESULT} to be stored, false for CMP
+     */
+    private static boolean operate(ClassFileWriter.Method run, int operation) {
+        run.invokeInterface(ALU, ALU_OPERATIONS[operation], "(III)I", 4);
+        if (operation == MOD_CMP) {
+            run.op(POP);
+            return false;
+        }
+        run.local(ISTORE, RESULT);
+        return true;
+    }
+
+    /**
+     * Emits a read of the register/memory operand, the memory is read by the execution unit.
+     */
+    private static void getRM(ClassFileWriter.Method run, Instruction8086 instruction) {
+        if (instruction.mod == MOD_REGISTER_TO_REGISTER) {
+            getReg(run, instruction.w, instruction.rm);
+            return;
+        }
+        run.local(ALOAD, THIS);
+        run.pushInt(instruction.w);
+        run.pushInt(instruction.mod);
+        run.pushInt(instruction.rm);
+        run.pushInt(instruction.disp);
+        run.invokeVirtual(BASE, "load", "(IIII)I");
+    }
+
+    /**
+     * Emits a write of a local variable to the register/memory operand.
+     */
+    private static void setRM(ClassFileWriter.Method run, Instruction8086 instruction, int local) {
+        if (instruction.mod == MOD_REGISTER_TO_REGISTER) {
+            setReg(run, instruction.w, instruction.rm, local);
+            return;
+        }
+        run.local(ALOAD, THIS);
+        run.pushInt(instruction.w);
+        run.pushInt(instruction.mod);
+        run.pushInt(instruction.rm);
+        run.pushInt(instruction.disp);
+        run.local(ILOAD, local);
+        run.invokeVirtual(BASE, "store", "(IIIII)V");
+    }
+
+    /**
+     * Emits a register read, as {@link EU8086} getReg().
+     */
+    private static void getReg(ClassFileWriter.Method run, int w, int reg) {
+        run.local(ALOAD, REGS);
+        if (w == B) {
+            // AL..BL are the low bytes and AH..BH the high bytes of AX..BX
+            run.pushInt(reg & 0b11);
+            run.op(IALOAD);
+            if (reg >= 4) {
+                run.pushInt(8);
+                run.op(ISHR);
+            }
+            run.pushInt(0xff);
+            run.op(IAND);
+        } else {
+            run.pushInt(reg);
+            run.op(IALOAD);
+            if (reg < 4) {
+                run.pushInt(0xffff);
+                run.op(IAND);
+            }
+        }
+    }
+
+    /**
+     * Emits a register write of a local variable, as {@link EU8086} setReg().
+     */
+    private static void setReg(ClassFileWriter.Method run, int w, int reg, int local) {
+        run.local(ALOAD, REGS);
+        if (w == W && reg >= 4) {
+            run.pushInt(reg);
+            run.local(ILOAD, local);
+            run.pushInt(0xffff);
+            run.op(IAND);
+            run.op(IASTORE);
+            return;
+        }
+
+        // Keep the other bits of the register
+        int index = w == B ? reg & 0b11 : reg;
+        run.pushInt(index);
+        run.local(ALOAD, REGS);
+        run.pushInt(index);
+        run.op(IALOAD);
+        run.pushInt(w == W ? 0xffff0000 : reg < 4 ? 0xffffff00 : 0xffff00ff);
+        run.op(IAND);
+        run.local(ILOAD, local);
+        if (w == B) {
+            run.pushInt(0xff);
+            run.op(IAND);
+            if (reg >= 4) {
+                run.pushInt(8);
+                run.op(ISHL);
+            }
+        }
+        run.op(IOR);
+        run.op(IASTORE);
+    }
+}
@@ -3,15 +3,64 @@ package cc.emulator.x86.i8086;
 import cc.emulator.x86.i8086.instruction.AdcAccumulatorImmediate;
 import cc.emulator.x86.intel.IntelDecoder;
 import cc.emulator.x86.intel.IntelInstruction;
+import cc.emulator.core.cpu.AbstractInstruction;
 import cc.emulator.core.cpu.Instruction;
+import cc.emulator.core.cpu.InstructionPool;
+
+import java.util.IdentityHashMap;
 
 /**
  * @author Shao Yongqing
  * Date: 2017/8/9.
  */
 public class Decoder8086 extends IntelDecoder {
+    /**
+     * Number of reusable records per instruction template, larger than the decoded instruction queue.
+     */
+    public static final int POOL_SIZE = 8;
+
+    /**
+     * Instruction template (pool) of every opcode byte, null if the opcode is either
+     * unknown or a group opcode whose instruction depends on the REG field.
+     */
+    InstructionPool opcodeTable[];
+    /**
+     * Instruction templates (pools) of the group opcodes (0x80-0x83, 0xF6, 0xF7, 0xFE, 0xFF),
+     * indexed by opcode byte and then by the REG field of the ModRM byte.
+     */
+    InstructionPool groupTable[][];
+    /**
+     * Instruction templates of the extend decoder, indexed by the REG field.
+     */
+    Instruction extTemplates[];
+    /**
+     * Records of the universal instruction, used when no template applies.
+     */
+    InstructionPool universalPool;
+
+    /**
+     * In reuse mode, decoded instructions are preallocated records which are overwritten
+     * by later decodes, instead of new objects.
+     */
+    boolean reuseInstructions = false;
+
     public Decoder8086(){
         super();
+        buildDispatchTable();
+    }
+
+    public boolean isReuseInstructions() {
+        return reuseInstructions;
+    }
+
+    /**
+     * Enables the allocation free decode mode. Only use it when no decoded instruction is
+     * kept after the next {@link #POOL_SIZE} decodes of the same kind, e.g. by the CPU pipeline.
+     *
+     * @param reuseInstructions true to decode into reusable instruction records
+     */
+    public void setReuseInstructions(boolean reuseInstructions) {
+        this.reuseInstructions = reuseInstructions;
     }
 
     protected String getPackagePrefix() {
@@ -137,38 +186,78 @@ public class Decoder8086 extends IntelDecoder {
 
         return opcodeIndex;
     }
-    public Instruction decode(int[] queue) {
-        IntelInstruction instr = null;
-        // 1. Check Prifx(es)
-        int startIndex= checkPrefix(queue);
+    /**
+     * Builds the opcode dispatch table once, by probing the instruction templates (and the
+     * extend decoder) with every opcode byte and every REG field of the following ModRM byte.
+     */
+    void buildDispatchTable(){
+        opcodeTable = new InstructionPool[0x100];
+        groupTable = new InstructionPool[0x100][];
+        extTemplates = new Instruction[8];
+        universalPool = new InstructionPool(new Instruction8086(), POOL_SIZE);
 
-        // 2. Decode opcode
+        // One pool per template, shared by all the opcodes of the template
+        IdentityHashMap<Instruction, InstructionPool> pools = new IdentityHashMap<>();
+        int probe[] = new int[6];
+        for(int op=0; op<0x100; op++){
+            InstructionPool byReg[] = new InstructionPool[8];
+            boolean sameForAll = true;
+            for(int reg=0; reg<8; reg++){
+                probe[0] = op;
+                probe[1] = reg << 3;
+                Instruction template = findTemplate(probe, reg);
+                if(template!=null && !pools.containsKey(template))
+                    pools.put(template, new InstructionPool((AbstractInstruction) template, POOL_SIZE));
+                byReg[reg] = template==null ? null : pools.get(template);
+                if(byReg[reg]!=byReg[0])
+                    sameForAll = false;
+            }
+            if(sameForAll)
+                opcodeTable[op] = byReg[0];
+            else
+                groupTable[op] = byReg;
+        }
+    }
+
+    Instruction findTemplate(int[] probe, int reg){
         // Check if there is any Instruction has such opcode
         for(int i=0; i<instructions.length; i++){
-            if(instructions[i].hasOpcode(queue, startIndex)){
-                instr = (IntelInstruction) instructions[i].clone();
-                instr.decodeMe(queue, startIndex);
-                break;
-            }
+            if(instructions[i]!=null && instructions[i].hasOpcode(probe, 0))
+                return instructions[i];
         }
 
-        // Check if the instruction already in hand
-        if(instr ==null){
-            // Try the extend decoder
-            if(ExtDecoder.hasOpcode(queue, startIndex)){
-                instr = ExtDecoder.decode(queue, startIndex);
-            }
+        // Try the extend decoder
+        if(ExtDecoder.hasOpcode(probe, 0)){
+            if(extTemplates[reg]==null)
+                extTemplates[reg] = ExtDecoder.createInstruction(reg);
+            return extTemplates[reg];
         }
 
-        if(instr==null){
+        return null;
+    }
+
+    public Instruction decode(int[] queue) {
+        IntelInstruction instr = null;
+        // 1. Check Prifx(es)
+        int startIndex= checkPrefix(queue);
+
+        // 2. Decode opcode
+        int op = queue[startIndex];
+        InstructionPool pool = opcodeTable[op];
+        if(pool==null && groupTable[op]!=null)
+            pool = groupTable[op][queue[1+startIndex] >>> 3 & 0b111];
+
+        if(pool==null){
             // if none of above instruction applied, try the universal instruction
-            instr =  new Instruction8086(queue);
-//            instr.op = queue[0];
-//            instr.d = instr.op >>> 1 & 0b1;
-//            instr.w = instr.op & 0b1;
+            pool = universalPool;
+            startIndex = 0;
         }
 
-        //ip = ip + 1 & 0xffff; // Increment IP.
+        if(reuseInstructions)
+            instr = (IntelInstruction) pool.obtain();
+        else
+            instr = (IntelInstruction) pool.getTemplate().clone();
+        instr.decodeMe(queue, startIndex);
 
         return instr;
     }
@@ -55,8 +55,22 @@ public class ExtDecoder implements Intel8086InstructionSet{
     }
 
     public static IntelInstruction decode(int[] raw, int startIndex) {
-        IntelInstruction instr = null;
         int reg = raw[1+startIndex] >>> 3 & 0b111;
+        IntelInstruction instr = createInstruction(reg);
+        if(instr!=null)
+            instr.decodeMe(raw, startIndex);
+
+        return instr;
+    }
+
+    /**
+     * Creates the (undecoded) instruction of GROUP 1 selected by the REG field.
+     *
+     * @param reg the REG field of the ModRM byte
+     * @return the instruction, or null if none applies
+     */
+    public static IntelInstruction createInstruction(int reg) {
+        IntelInstruction instr = null;
         switch(reg) {
             case MOD_ADD: //   0b000: // ADD
                 instr =  new AddRegisterMemoryImmediate();      //  (raw, startIndex);
@@ -83,9 +97,6 @@ public class ExtDecoder implements Intel8086InstructionSet{
                 instr =  new CmpRegisterMemoryImmediate();      //  (raw, startIndex);
                 break;
         }
-        if(instr!=null)
-            instr.decodeMe(raw, startIndex);
-
         return instr;
     }
 }
@@ -8,6 +8,12 @@ import cc.emulator.x86.intel.IntelInstructionUnit;
  * Date: 2017/9/14.
  */
 public class IU8086 extends IntelInstructionUnit {
+    public IU8086(){
+        super();
+        // The pipeline executes each decoded instruction right away, so its decoder can
+        // reuse the instruction records instead of allocating new ones
+        ((Decoder8086) getDecoder()).setReuseInstructions(true);
+    }
 
     @Override
     protected DecodedInstructionQueue createDecodedInstructionQueue() {
@@ -88,7 +88,8 @@ public  class Instruction8086 extends IntelInstruction {
         // Copy the prefix(es)
         if(startIndex>0) {
             prefixCount = startIndex;
-            prefixes = new int[prefixCount];
+            if(prefixes==null || prefixes.length<prefixCount)
+                prefixes = new int[prefixCount];
             for (int i = 0; i < startIndex; i++) {
                 prefixes[i] = raw[i];
             }
@@ -99,13 +100,13 @@ public  class Instruction8086 extends IntelInstruction {
     public String toBinary() {
         StringBuffer bin = new StringBuffer();
 
-        for(int i=0;i<rawData.length;i++){
+        for(int i=0;i<length;i++){
             StringBuffer zero8= new StringBuffer("00000000");
             String bits = Integer.toBinaryString(rawData[i]);
             // replace(int start, int end, String str)
             zero8.replace(8-bits.length(),8,bits);
             bin.append(zero8);
-            if(i<rawData.length-1)
+            if(i<length-1)
                 bin.append(" ");
         }
         return bin.toString();
@@ -114,13 +115,13 @@ public  class Instruction8086 extends IntelInstruction {
     @Override
     public String toHexadecimal() {
         StringBuffer hexBuffer = new StringBuffer();
-        for(int i=0;i<rawData.length;i++){
+        for(int i=0;i<length;i++){
             String hexs = Integer.toHexString(rawData[i]);
             if(hexs.length()==1){
                 hexBuffer.append("0");
             }
             hexBuffer.append(hexs);
-            if(i<rawData.length-1)
+            if(i<length-1)
                 hexBuffer.append(" ");
         }
         return hexBuffer.toString();
@@ -238,6 +239,13 @@ public  class Instruction8086 extends IntelInstruction {
 
 
 
+    @Override
+    protected void reset() {
+        super.reset();
+        startIndex = 0;
+        address = 0;
+    }
+
     @Override
     public int getClocks() {
         return 1;
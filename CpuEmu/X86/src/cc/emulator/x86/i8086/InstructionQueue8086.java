@@ -41,8 +41,46 @@ public class InstructionQueue8086 implements InstructionQueue {
         //for (int i = 0; i < 6; i++)
         //    queue[i] = 0;
         current=0;
+        address=-1;
     }
     int current;
+    /**
+     * Offset (IP) of the first byte in the queue, -1 if the queue has been flushed.
+     */
+    int address=-1;
+
+    public int getAddress() {
+        return address;
+    }
+
+    public void setAddress(int address) {
+        this.address = address;
+    }
+
+    /**
+     * Gets the number of bytes in the queue.
+     *
+     * @return the number of prefetched bytes
+     */
+    public int getCount() {
+        return current;
+    }
+
+    public boolean isFull() {
+        return current == QUEUE_SIZE;
+    }
+
+    /**
+     * Removes the bytes consumed by the EU from the head of the queue, and keeps the rest.
+     *
+     * @param count the number of bytes consumed
+     */
+    public void consume(int count) {
+        for (int i = count; i < current; i++)
+            queue[i - count] = queue[i];
+        current -= count;
+        address = address + count & 0xffff;
+    }
     @Override
     public void fillInstructionQueue(int instruction){
         queue[current]=instruction;
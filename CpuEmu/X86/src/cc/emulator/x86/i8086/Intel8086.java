@@ -6,9 +6,7 @@ import cc.emulator.core.cpu.register.ProgramCounter;
 import cc.emulator.core.cpu.register.SegmentRegister;
 import cc.emulator.x86.intel.IntelAddressUnit;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 
 
 /**
@@ -76,6 +74,8 @@ public class Intel8086 extends Cpu implements Intel8086InstructionSet {
     public static void main(final String[] args) {
         // Instantiate a new CPU.
         MemoryManager mm = new MemoryManager();
+        // IBM BIOS and BASIC are ROM.
+        mm.mapRom(0xf6000, 0x100000 - 0xf6000);
         final Intel8086 cpu = new Intel8086(mm);
         // Reset the CPU.
         cpu.reset();
@@ -97,28 +97,11 @@ public class Intel8086 extends Cpu implements Intel8086InstructionSet {
      * @param addr
      *            the address
      * @param path
-     *            the file path
+     *            the file path, or the resource name
      * @throws IOException
      */
     public void load(final int addr, final String path) throws IOException {
-        final InputStream is = getClass().getClassLoader().getResourceAsStream(path);
-        final byte[] bin = new byte[is.available()];
-        DataInputStream dis = null;
-        try {
-            dis = new DataInputStream(is);
-            dis.readFully(bin);
-        } catch (final IOException e) {
-            e.printStackTrace();
-        } finally {
-            if (dis != null)
-                dis.close();
-            is.close();
-        }
-
-        int memory[] = memoryManager.getMemoryBase();
-
-        for (int i = 0; i < bin.length; i++)
-            memory[addr + i] = bin[i] & 0xff;
+        memoryManager.load(addr, path);
     }
 
     @Override
@@ -131,6 +114,14 @@ public class Intel8086 extends Cpu implements Intel8086InstructionSet {
                 );
     }
 
+    @Override
+    protected ICache createICache() {
+        BasicBlockCache cache = new BasicBlockCache(getMemoryManager().getPhysicalMemory().size());
+        // The hot blocks are run as generated classes, if translation is enabled
+        cache.setTranslator(new BlockTranslator8086(this));
+        return cache;
+    }
+
     @Override
     public BusInterfaceUnit createBIU() {
         return new BIU8086(getMemoryManager(), getAddressUnit());
@@ -0,0 +1,59 @@
+package cc.emulator.x86.i8086;
+
+import cc.emulator.core.cpu.register.PointerIndexer;
+
+/**
+ * A pointer or index register (SP, BP, SI, DI) of the flat 8086 register file.
+ *
+ * @see RegisterView8086
+ */
+public class PointerIndexerView8086 extends PointerIndexer {
+    final int file[];
+    final int index;
+
+    public PointerIndexerView8086(String name, int file[], int index) {
+        super(name, 2);
+        this.file = file;
+        this.index = index;
+    }
+
+    @Override
+    public int getData() {
+        return file[index];
+    }
+
+    @Override
+    public void setData(int v) {
+        file[index] = v;
+    }
+
+    @Override
+    public long getDataLong() {
+        return file[index];
+    }
+
+    @Override
+    public void setData(long v) {
+        file[index] = (int) (v&0xFFFFFFFF);
+    }
+
+    @Override
+    public void reset() {
+        file[index] = 0;
+    }
+
+    @Override
+    public void decrease(int delta){
+        file[index] = file[index] - delta;
+    }
+
+    @Override
+    public void increase(int delta){
+        file[index] = file[index] + delta;
+    }
+
+    @Override
+    public void inc(int df, int w) {
+        file[index] = (file[index] + df * (1 + w)) & 0xffff;
+    }
+}
@@ -0,0 +1,78 @@
+package cc.emulator.x86.i8086;
+
+/**
+ * A data register (AX, CX, DX, BX) of the flat 8086 register file.
+ *
+ * The value is kept in the register file of the EU, indexed by the REG encoding, so the
+ * EU could access it directly. This object is only a view of it, e.g. for the UI panes.
+ */
+public class RegisterView8086 extends DividableRegister8086 {
+    final int file[];
+    final int index;
+
+    public RegisterView8086(String name, int file[], int index) {
+        super(name, 2);
+        this.file = file;
+        this.index = index;
+    }
+
+    @Override
+    public int getData() {
+        return file[index];
+    }
+
+    @Override
+    public void setData(int v) {
+        file[index] = v;
+    }
+
+    @Override
+    public long getDataLong() {
+        return file[index];
+    }
+
+    @Override
+    public void setData(long v) {
+        file[index] = (int) (v&0xFFFFFFFF);
+    }
+
+    @Override
+    public void reset() {
+        file[index] = 0;
+    }
+
+    @Override
+    public int getL(){
+        return file[index]&0xFF;
+    }
+
+    @Override
+    public int getH(){
+        return (file[index]>>8)&0xFF;
+    }
+
+    @Override
+    public void setH(int v){
+        file[index] = (file[index] & 0xFFFF00FF) | (v << 8);
+    }
+
+    @Override
+    public void setL(int v){
+        file[index] = (file[index] & 0xFFFFFF00) | v;
+    }
+
+    @Override
+    public int getX(){
+        return file[index]&0xFFFF;
+    }
+
+    @Override
+    public void setX(int v){
+        file[index] = (file[index]&0xFFFF0000)|v;
+    }
+
+    @Override
+    public void inc(int df, int w) {
+        file[index] = (file[index] + df * (1 + w)) & 0xffff;
+    }
+}
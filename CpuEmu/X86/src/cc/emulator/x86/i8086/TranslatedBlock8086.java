@@ -0,0 +1,116 @@
+package cc.emulator.x86.i8086;
+
+import cc.emulator.core.cpu.ArithmeticLogicUnit;
+import cc.emulator.core.cpu.ICache;
+import cc.emulator.core.cpu.Instruction;
+import cc.emulator.core.cpu.TranslatedBlock;
+import cc.emulator.x86.intel.ProgramStatusWord;
+
+import java.util.Arrays;
+
+/**
+ * Base of the classes generated for the hot blocks by {@link BlockTranslator8086}.
+ *
+ * The generated code works straight on the register file, the ALU and the flags of the
+ * execution unit, and calls back here for what it shares with the interpreter: the checks
+ * between two instructions, the clock, the memory operands, and the instructions left to the
+ * interpreter.
+ */
+public abstract class TranslatedBlock8086 extends TranslatedBlock {
+    protected final int regs[];
+    protected final ArithmeticLogicUnit alu;
+    protected final ProgramStatusWord flags;
+
+    private final Intel8086 cpu;
+    private final EU8086 eu;
+    private final ICache cache;
+    private final Instruction instructions[];
+    private final int addresses[];
+
+    // Invalidations of the cache when the block was entered
+    private int modCount;
+
+    protected TranslatedBlock8086(Intel8086 cpu, Instruction instructions[], int addresses[], int count) {
+        super(addresses[0], count);
+        this.cpu = cpu;
+        this.eu = (EU8086) cpu.getExecutionUnit();
+        this.cache = cpu.getICache();
+        this.instructions = Arrays.copyOf(instructions, count);
+        this.addresses = Arrays.copyOf(addresses, count);
+        this.regs = eu.getRegisterFile();
+        this.alu = eu.getALU();
+        this.flags = eu.flags;
+    }
+
+    /**
+     * Enters an instruction of the block. Before all but the first one, the single step and
+     * external interrupts are checked as {@link Intel8086#tick()} does.
+     *
+     * @param index
+     *            the index of the instruction
+     * @return true if the execution still follows the block, false to leave it
+     */
+    protected final boolean enter(int index) {
+        if (index == 0) {
+            modCount = cache.getModCount();
+            return true;
+        }
+
+        eu.trySingleStepMode();
+        eu.tryExternalMaskabkeInterrupts(cpu.getPic());
+        return cache.getModCount() == modCount && cpu.currentAddress() == addresses[index];
+    }
+
+    /**
+     * Starts a translated instruction, as the interpreter does before executing it.
+     *
+     * @param length
+     *            the length of the instruction
+     */
+    protected final void begin(int length) {
+        eu.instructionLocator.incOffset(length);
+        // Run the device events due
+        eu.advanceClock();
+    }
+
+    /**
+     * Ends a translated instruction.
+     *
+     * @param clocks
+     *            the clock cycles of the instruction
+     */
+    protected final void end(int clocks) {
+        eu.addClocks(clocks);
+    }
+
+    /**
+     * Reads a memory operand, its effective address clocks included.
+     */
+    protected final int load(int w, int mod, int rm, int disp) {
+        return eu.readOperand(w, mod, rm, disp);
+    }
+
+    /**
+     * Writes a memory operand, its effective address clocks included.
+     */
+    protected final void store(int w, int mod, int rm, int disp, int val) {
+        eu.writeOperand(w, mod, rm, disp, val);
+    }
+
+    /**
+     * Executes an instruction of the block by the interpreter.
+     *
+     * @param index
+     *            the index of the instruction
+     * @return true if instructions remain, false otherwise
+     */
+    protected final boolean interpret(int index) {
+        Instruction instruction = instructions[index];
+        eu.instructionLocator.incOffset(instruction.getLength());
+        return eu.execute(instruction);
+    }
+
+    protected final boolean isHalted() {
+        return eu.isHalted();
+    }
+}
@@ -9,9 +9,28 @@ import cc.emulator.core.cpu.AddressUnit;
 public class IntelAddressUnit implements AddressUnit {
     protected int seg;
 
+    /**
+     * Mask of the address lines, the 20 bits of the 8086 wrap the addresses around at 1MB.
+     * A 286/386 uses a wider mask, and clears bit 20 of it while the A20 gate is off.
+     */
+    protected int addressMask = 0xFFFFF;
+
+    public int getAddressMask() {
+        return addressMask;
+    }
+
+    public void setAddressMask(int addressMask) {
+        this.addressMask = addressMask;
+    }
+
     @Override
     public int getAddr(int seg, int off) {
-        return (seg << 4) + off;
+        return getLinearAddr(seg << 4, off);
+    }
+
+    @Override
+    public int getLinearAddr(int base, int off) {
+        return base + (off & 0xffff) & addressMask;
     }
 
     @Override
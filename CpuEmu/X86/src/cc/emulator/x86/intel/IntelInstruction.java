@@ -139,6 +139,16 @@ public abstract class IntelInstruction extends AbstractInstruction implements  I
     }
 
 
+    @Override
+    protected void reset() {
+        super.reset();
+        op = d = w = 0;
+        mod = reg = rm = 0;
+        disp = 0;
+        immediate = 0;
+        prefixCount = 0;
+    }
+
     protected void copyOthers(Instruction instruction) {
         IntelInstruction intelInstruction = (IntelInstruction) instruction;
         if(prefixes!=null) {
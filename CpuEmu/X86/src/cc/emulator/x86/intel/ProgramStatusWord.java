@@ -142,6 +142,175 @@ public class ProgramStatusWord extends StatusRegister{
 
 
 
+    /**
+     * Lazy flags
+     *
+     * The arithmetic and logical operations only record their kind, operands and result
+     * here. The status flags they affect are pending, and each one is evaluated the first
+     * time it is read (hasFlag, getData), or dropped if it is written or overwritten by the
+     * next operation first. The visible flag values are identical to an eager evaluation.
+     */
+    public static final int   OP_ADD   = 1;
+    public static final int   OP_ADC   = 2;
+    public static final int   OP_SUB   = 3;
+    public static final int   OP_SBB   = 4;
+    public static final int   OP_INC   = 5;
+    public static final int   OP_DEC   = 6;
+    public static final int   OP_LOGIC = 7;
+
+    /** Flags affected by ADD, ADC, SUB, SBB. */
+    private static final int ARITHMETIC_FLAGS = CF | PF | AF | ZF | SF | OF;
+    /** Flags affected by INC, DEC (all but CF). */
+    private static final int INC_DEC_FLAGS    = PF | AF | ZF | SF | OF;
+    /** Flags affected by AND, OR, XOR, TEST (AF is left unchanged). */
+    private static final int LOGIC_FLAGS      = CF | PF | ZF | SF | OF;
+
+    /** Whether the flags of the operations are evaluated on demand. */
+    private boolean lazy = true;
+
+    /** The flags not evaluated yet. */
+    private int pending;
+    /** The last operation recorded, with its operands and result. */
+    private int lazyOp, lazyW, lazyDst, lazySrc, lazyRes, lazyCarry;
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public void setLazy(boolean lazy) {
+        evaluate(pending);
+        this.lazy = lazy;
+    }
+
+    /**
+     * Records an arithmetic or logical operation, whose flags are evaluated on demand.
+     *
+     * @param op
+     *            the operation, OP_ADD, OP_ADC, ...
+     * @param w
+     *            word/byte operation
+     * @param dst
+     *            the first operand
+     * @param src
+     *            the second operand
+     * @param res
+     *            the result
+     * @param carry
+     *            the carry (borrow) in of ADC and SBB
+     */
+    public void setResult(final int op, final int w, final int dst, final int src, final int res, final int carry) {
+        final int affected = op == OP_INC || op == OP_DEC ? INC_DEC_FLAGS : op == OP_LOGIC ? LOGIC_FLAGS : ARITHMETIC_FLAGS;
+        // Keep the pending flags this operation leaves unchanged
+        if ((pending & ~affected) != 0)
+            evaluate(pending & ~affected);
+
+        lazyOp = op;
+        lazyW = w;
+        lazyDst = dst;
+        lazySrc = src;
+        lazyRes = res;
+        lazyCarry = carry;
+        pending = affected;
+
+        if (!lazy)
+            evaluate(pending);
+    }
+
+    /**
+     * Evaluates the pending flags given from the last operation recorded.
+     *
+     * @param mask
+     *            the flags to evaluate
+     */
+    private void evaluate(int mask) {
+        mask &= pending;
+        if (mask == 0)
+            return;
+
+        final int w = lazyW, dst = lazyDst, src = lazySrc, res = lazyRes;
+        int set = 0;
+        if ((mask & CF) != 0) {
+            boolean cf = false;
+            switch (lazyOp) {
+                case OP_ADD: cf = res < dst; break;
+                case OP_ADC: cf = lazyCarry == 1 ? res <= dst : res < dst; break;
+                case OP_SUB: cf = dst < src; break;
+                case OP_SBB: cf = lazyCarry > 0 ? dst <= src : dst < src; break;
+            }
+            if (cf) set |= CF;
+        }
+        if ((mask & AF) != 0) {
+            if (((res ^ dst ^ src) & AF) > 0) set |= AF;
+        }
+        if ((mask & OF) != 0) {
+            boolean of = false;
+            switch (lazyOp) {
+                case OP_ADD:
+                case OP_ADC: of = (shift((dst ^ src ^ -1) & (dst ^ res), 12 - BITS[w]) & OF) > 0; break;
+                case OP_SUB:
+                case OP_SBB: of = (shift((dst ^ src) & (dst ^ res), 12 - BITS[w]) & OF) > 0; break;
+                case OP_INC: of = res == SIGN[w]; break;
+                case OP_DEC: of = res == SIGN[w] - 1; break;
+            }
+            if (of) set |= OF;
+        }
+        if ((mask & PF) != 0 && PARITY[res & 0xff] > 0) set |= PF;
+        if ((mask & ZF) != 0 && res == 0) set |= ZF;
+        if ((mask & SF) != 0 && (shift(res, 8 - BITS[w]) & SF) > 0) set |= SF;
+
+        flags = flags & ~mask | set;
+        pending &= ~mask;
+    }
+
+    @Override
+    public boolean hasFlag(int flag) {
+        if ((pending & flag) != 0)
+            evaluate(flag);
+        return super.hasFlag(flag);
+    }
+
+    @Override
+    public int getData() {
+        evaluate(pending);
+        return super.getData();
+    }
+
+    @Override
+    public void setData(int data) {
+        pending = 0;
+        super.setData(data);
+    }
+
+    @Override
+    public long getDataLong() {
+        evaluate(pending);
+        return super.getDataLong();
+    }
+
+    @Override
+    public void setData(long data) {
+        pending = 0;
+        super.setData(data);
+    }
+
+    @Override
+    public void setFlag(int flag) {
+        pending &= ~flag;
+        super.setFlag(flag);
+    }
+
+    @Override
+    public void clearFlag(int flag) {
+        pending &= ~flag;
+        super.clearFlag(flag);
+    }
+
+    @Override
+    public void reset() {
+        pending = 0;
+        super.reset();
+    }
+
     /**
      * Sets the parity, zero and sign flags.
      *
@@ -0,0 +1,171 @@
+package cc.emulator.x86.i8086;
+
+import cc.emulator.x86.intel.ProgramStatusWord;
+
+import java.util.Random;
+
+import static cc.emulator.x86.intel.ProgramStatusWord.*;
+
+/**
+ * Checks the lazy flags of {@link ProgramStatusWord} against their eager evaluation and against
+ * flags computed from the definitions, for random runs of ADD, ADC, SUB, SBB, INC, DEC, AND, OR
+ * and XOR on edge operands. The flags are read at random points, so some stay pending across
+ * several operations, e.g. the CF of an ADD across an INC, or the AF of a SUB across an AND.
+ *
+ * Run with: java cc.emulator.x86.i8086.ALU8086Test
+ */
+public class ALU8086Test {
+    private static final int STATUS = CF | PF | AF | ZF | SF | OF;
+    private static final int[] MASK = {0xff, 0xffff};
+    private static final int[] SIGN = {0x80, 0x8000};
+    private static final int[] EDGES = {0, 1, 0x0f, 0x10, 0x7f, 0x80, 0xff, 0x7fff, 0x8000, 0xffff};
+
+    private static final String[] NAMES = {"ADD", "ADC", "SUB", "SBB", "INC", "DEC", "AND", "OR", "XOR"};
+
+    /** Flags computed from their definitions, the AF and CF left by the operations kept. */
+    private int expected;
+
+    public static void main(String[] args) {
+        new ALU8086Test().run(args.length > 0 ? Long.parseLong(args[0]) : 8086);
+    }
+
+    void run(long seed) {
+        Random random = new Random(seed);
+        ProgramStatusWord lazyFlags = new ProgramStatusWord();
+        ProgramStatusWord eagerFlags = new ProgramStatusWord();
+        eagerFlags.setLazy(false);
+        ALU8086 lazy = new ALU8086(lazyFlags);
+        ALU8086 eager = new ALU8086(eagerFlags);
+        expected = lazyFlags.getData() & STATUS;
+
+        int failures = 0;
+        int runs = 20000;
+        for (int run = 0; run < runs; run++) {
+            StringBuilder trace = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int i = 0; i < length; i++) {
+                int op = random.nextInt(NAMES.length);
+                int w = random.nextInt(2);
+                int dst = operand(random, w);
+                int src = operand(random, w);
+                trace.append(NAMES[op]).append(w == 1 ? "16 " : "8 ")
+                        .append(Integer.toHexString(dst)).append(',').append(Integer.toHexString(src)).append("; ");
+
+                int lazyRes = apply(lazy, op, w, dst, src);
+                int eagerRes = apply(eager, op, w, dst, src);
+                int res = reference(op, w, dst, src);
+                if (lazyRes != res || eagerRes != res) {
+                    if (failures++ < 10)
+                        System.out.println(trace + "result " + Integer.toHexString(lazyRes) + " expected " + Integer.toHexString(res));
+                }
+
+                // Read some of the flags now and then, leaving the others pending
+                if (random.nextInt(4) == 0) {
+                    int flag = 1 << random.nextInt(12) & STATUS;
+                    if (flag != 0 && lazyFlags.hasFlag(flag) != ((expected & flag) != 0)) {
+                        if (failures++ < 10)
+                            System.out.println(trace + "flag " + Integer.toHexString(flag) + " wrong");
+                    }
+                }
+            }
+
+            int lazyData = lazyFlags.getData() & STATUS;
+            int eagerData = eagerFlags.getData() & STATUS;
+            if (lazyData != expected || eagerData != expected) {
+                if (failures++ < 10)
+                    System.out.println(trace + "flags lazy " + Integer.toHexString(lazyData) + " eager "
+                            + Integer.toHexString(eagerData) + " expected " + Integer.toHexString(expected));
+            }
+        }
+
+        System.out.println(runs + " runs checked, " + failures + " failures");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static int operand(Random random, int w) {
+        return random.nextBoolean() ? EDGES[random.nextInt(EDGES.length)] & MASK[w] : random.nextInt(MASK[w] + 1);
+    }
+
+    private static int apply(ALU8086 alu, int op, int w, int dst, int src) {
+        switch (op) {
+            case 0: return alu.add(w, dst, src);
+            case 1: return alu.adc(w, dst, src);
+            case 2: return alu.sub(w, dst, src);
+            case 3: return alu.sbb(w, dst, src);
+            case 4: return alu.inc(w, dst);
+            case 5: return alu.dec(w, dst);
+            case 6: return alu.and(w, dst, src);
+            case 7: return alu.or(w, dst, src);
+            default: return alu.xor(w, dst, src);
+        }
+    }
+
+    /**
+     * Computes an operation and its flags from the definitions, on the signed and unsigned
+     * values of the operands.
+     */
+    private int reference(int op, int w, int dst, int src) {
+        int carry = (expected & CF) != 0 ? 1 : 0;
+        int signedDst = dst << 32 - 8 * (w + 1) >> 32 - 8 * (w + 1);
+        int signedSrc = src << 32 - 8 * (w + 1) >> 32 - 8 * (w + 1);
+        int unsigned, signed, nibble;
+        switch (op) {
+            case 0:
+            case 1:
+                int addCarry = op == 1 ? carry : 0;
+                unsigned = dst + src + addCarry;
+                signed = signedDst + signedSrc + addCarry;
+                nibble = (dst & 0xf) + (src & 0xf) + addCarry;
+                break;
+            case 2:
+            case 3:
+                int borrow = op == 3 ? carry : 0;
+                unsigned = dst - src - borrow;
+                signed = signedDst - signedSrc - borrow;
+                nibble = (dst & 0xf) - (src & 0xf) - borrow;
+                break;
+            case 4:
+                unsigned = dst + 1;
+                signed = signedDst + 1;
+                nibble = (dst & 0xf) + 1;
+                break;
+            case 5:
+                unsigned = dst - 1;
+                signed = signedDst - 1;
+                nibble = (dst & 0xf) - 1;
+                break;
+            default:
+                int res = op == 6 ? dst & src : op == 7 ? dst | src : dst ^ src;
+                // CF and OF cleared, AF left unchanged
+                expected = expected & AF | common(w, res);
+                return res;
+        }
+
+        int res = unsigned & MASK[w];
+        int flags = common(w, res);
+        if (signed < -SIGN[w] || signed >= SIGN[w])
+            flags |= OF;
+        if (nibble < 0 || nibble > 0xf)
+            flags |= AF;
+        if (op == 4 || op == 5)
+            // CF left unchanged
+            flags |= expected & CF;
+        else if (unsigned < 0 || unsigned > MASK[w])
+            flags |= CF;
+        expected = flags;
+        return res;
+    }
+
+    /** PF, ZF and SF of a result. */
+    private static int common(int w, int res) {
+        int flags = 0;
+        if (Integer.bitCount(res & 0xff) % 2 == 0)
+            flags |= PF;
+        if (res == 0)
+            flags |= ZF;
+        if ((res & SIGN[w]) != 0)
+            flags |= SF;
+        return flags;
+    }
+}
@@ -0,0 +1,101 @@
+package cc.emulator.x86.i8086;
+
+import cc.emulator.core.cpu.Instruction;
+import cc.emulator.x86.intel.IntelInstruction;
+
+/**
+ * Checks the opcode dispatch table of {@link Decoder8086} against the linear scan of the
+ * instruction templates it replaced, for every opcode byte and every ModRM byte, with and
+ * without prefixes.
+ *
+ * Run with: java cc.emulator.x86.i8086.Decoder8086Test
+ */
+public class Decoder8086Test {
+
+    /**
+     * The decoder as it was before the dispatch table: the first template claiming the opcode,
+     * then the extend decoder, then the universal instruction.
+     */
+    static class LinearDecoder extends Decoder8086 {
+        Instruction decodeLinearly(int[] queue) {
+            int startIndex = checkPrefix(queue);
+            for (int i = 0; i < instructions.length; i++) {
+                if (instructions[i] != null && instructions[i].hasOpcode(queue, startIndex)) {
+                    IntelInstruction instr = (IntelInstruction) instructions[i].clone();
+                    instr.decodeMe(queue, startIndex);
+                    return instr;
+                }
+            }
+            if (ExtDecoder.hasOpcode(queue, startIndex))
+                return ExtDecoder.decode(queue, startIndex);
+            return new Instruction8086(queue);
+        }
+    }
+
+    static String describe(Instruction instruction) {
+        IntelInstruction instr = (IntelInstruction) instruction;
+        StringBuilder sb = new StringBuilder(instr.getClass().getSimpleName())
+                .append(" op=").append(instr.op)
+                .append(" d=").append(instr.d)
+                .append(" w=").append(instr.w)
+                .append(" mod=").append(instr.mod)
+                .append(" reg=").append(instr.reg)
+                .append(" rm=").append(instr.rm)
+                .append(" disp=").append(instr.disp)
+                .append(" imm=").append(instr.immediate)
+                .append(" length=").append(instr.getLength())
+                .append(" prefixes=");
+        for (int i = 0; i < instr.getPrefixCount(); i++)
+            sb.append(Integer.toHexString(instr.getPrefix(i))).append(' ');
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        Decoder8086 decoder = new Decoder8086();
+        LinearDecoder reference = new LinearDecoder();
+        int prefixes[][] = {{}, {PREFIX_ES}, {PREFIX_REPEZ}, {PREFIX_CS, PREFIX_REPNEZ}};
+        int checked = 0;
+        int failures = 0;
+
+        for (int[] prefix : prefixes) {
+            for (int op = 0; op < 0x100; op++) {
+                for (int modrm = 0; modrm < 0x100; modrm++) {
+                    int queue[] = new int[prefix.length + 6];
+                    System.arraycopy(prefix, 0, queue, 0, prefix.length);
+                    queue[prefix.length] = op;
+                    queue[prefix.length + 1] = modrm;
+                    queue[prefix.length + 2] = 0x34;
+                    queue[prefix.length + 3] = 0x92;
+                    queue[prefix.length + 4] = 0x78;
+                    queue[prefix.length + 5] = 0xd6;
+
+                    // Described at once, the decoder could reuse the instruction
+                    String expected = describe(reference.decodeLinearly(queue));
+                    String actual = describe(decoder.decode(queue));
+                    checked++;
+                    if (!expected.equals(actual)) {
+                        if (failures++ < 10)
+                            System.out.println("Mismatch for " + toHex(queue) + "\n  expected " + expected
+                                    + "\n  actual   " + actual);
+                    }
+                }
+            }
+        }
+
+        System.out.println(checked + " encodings checked, " + failures + " mismatches");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static final int PREFIX_ES = Intel8086InstructionSet.PREFIX_ES;
+    private static final int PREFIX_CS = Intel8086InstructionSet.PREFIX_CS;
+    private static final int PREFIX_REPEZ = Intel8086InstructionSet.PREFIX_REPEZ;
+    private static final int PREFIX_REPNEZ = Intel8086InstructionSet.PREFIX_REPNEZ;
+
+    private static String toHex(int[] queue) {
+        StringBuilder sb = new StringBuilder();
+        for (int b : queue)
+            sb.append(String.format("%02x ", b));
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,211 @@
+package cc.emulator.x86.i8086;
+
+import cc.emulator.core.MemoryManager;
+import cc.emulator.core.ProgrammableInterruptController;
+import cc.emulator.core.cpu.DataListener;
+import cc.emulator.core.cpu.bus.DataBus;
+
+/**
+ * Checks the bulk execution of the repeated MOVS, STOS, CMPS and SCAS against their element by
+ * element execution. Each case runs twice: on a plain memory, where the bulk path applies, and
+ * on a memory listened on all its pages, which goes element by element through the bus. The
+ * registers, flags, memory and virtual clock must end up identical.
+ *
+ * Run with: java cc.emulator.x86.i8086.RepeatStringTest
+ */
+public class RepeatStringTest implements Intel8086InstructionSet {
+    private static final int CODE = 0x500;
+
+    /** No interrupt ever, the CPU runs till its HLT. */
+    static class NoInterrupts implements ProgrammableInterruptController {
+        public void callIRQ(int line) { }
+        public boolean hasInt() { return false; }
+        public int nextInt() { return 0; }
+        public int portIn(int w, int port) { return 0; }
+        public void portOut(int w, int port, int val) { }
+        public boolean isConnected(int port) { return false; }
+    }
+
+    /** Counts the single byte and word accesses, which the bulk path does not use. */
+    static class CountingMemory extends MemoryManager {
+        long accesses;
+
+        @Override
+        public int readByte(int addr) {
+            accesses++;
+            return super.readByte(addr);
+        }
+
+        @Override
+        public int readWord(int addr) {
+            accesses++;
+            return super.readWord(addr);
+        }
+
+        @Override
+        public void writeByte(int addr, int val) {
+            accesses++;
+            super.writeByte(addr, val);
+        }
+
+        @Override
+        public void writeWord(int addr, int val) {
+            accesses++;
+            super.writeWord(addr, val);
+        }
+    }
+
+    /** The state of the machine after a run. */
+    static class State {
+        long accesses;
+        String registers;
+        long memory;
+        long time;
+    }
+
+    private int failures = 0;
+
+    public static void main(String[] args) {
+        RepeatStringTest test = new RepeatStringTest();
+        test.run();
+        System.out.println(test.failures == 0 ? "All cases passed" : test.failures + " cases failed");
+        if (test.failures > 0)
+            System.exit(1);
+    }
+
+    void run() {
+        //    name                          prefix        op               ds      es      si      di      cx     ax      down
+        check("MOVSB",                      PREFIX_REPEZ, MOVS_STR8_STR8,  0x1000, 0x2000, 0x0010, 0x0100, 1000,  0,      false, true);
+        check("MOVSW odd addresses",        PREFIX_REPEZ, MOVS_STR16_STR16,0x1000, 0x3000, 0x0ffb, 0x1001, 3000,  0,      false, true);
+        check("MOVSB overlap up",           PREFIX_REPEZ, MOVS_STR8_STR8,  0x1000, 0x1000, 0x0100, 0x0101, 500,   0,      false, false);
+        check("MOVSW overlap down",         PREFIX_REPEZ, MOVS_STR16_STR16,0x1000, 0x1000, 0x0400, 0x0402, 300,   0,      true,  false);
+        check("MOVSB down",                 PREFIX_REPEZ, MOVS_STR8_STR8,  0x1000, 0x2000, 0x0800, 0x0900, 700,   0,      true,  true);
+        check("MOVSB CX=0",                 PREFIX_REPEZ, MOVS_STR8_STR8,  0x1000, 0x2000, 0x0010, 0x0100, 0,     0,      false, false);
+        check("MOVSB segment wrap",         PREFIX_REPEZ, MOVS_STR8_STR8,  0x1000, 0x2000, 0x0010, 0xfff0, 0x40,  0,      false, true);
+        check("MOVSW end of memory",        PREFIX_REPEZ, MOVS_STR16_STR16,0x1000, 0xf000, 0x0010, 0xff00, 0x100, 0,      false, false);
+        check("STOSB",                      PREFIX_REPEZ, STOS_STR8,       0x1000, 0x2000, 0,      0x0ff0, 5000,  0x5a,   false, true);
+        check("STOSW down",                 PREFIX_REPEZ, STOS_STR16,      0x1000, 0x2000, 0,      0x2001, 2000,  0xa55a, true,  true);
+        check("STOSW segment wrap down",    PREFIX_REPEZ, STOS_STR16,      0x1000, 0x2000, 0,      0x0010, 0x20,  0x1234, true,  true);
+        check("REPE CMPSB mismatch",        PREFIX_REPEZ, CMPS_STR8_STR8,  0x4000, 0x5000, 0x0100, 0x0100, 1000,  0,      false, true);
+        check("REPE CMPSW mismatch high",   PREFIX_REPEZ, CMPS_STR16_STR16,0x4000, 0x5000, 0x0300, 0x0300, 1000,  0,      false, true);
+        check("REPE CMPSB equal",           PREFIX_REPEZ, CMPS_STR8_STR8,  0x4000, 0x5000, 0x0100, 0x0100, 37,    0,      false, true);
+        check("REPNE CMPSB",                PREFIX_REPNEZ,CMPS_STR8_STR8,  0x4000, 0x6000, 0x0100, 0x0100, 1000,  0,      false, true);
+        check("REPE CMPSB down",            PREFIX_REPEZ, CMPS_STR8_STR8,  0x4000, 0x5000, 0x0200, 0x0200, 100,   0,      true,  false);
+        check("REPE SCASB mismatch",        PREFIX_REPEZ, SCAS_STR8,       0x1000, 0x7000, 0,      0x0100, 1000,  0x11,   false, true);
+        check("REPNE SCASB found",          PREFIX_REPNEZ,SCAS_STR8,       0x1000, 0x7000, 0,      0x0100, 1000,  0x22,   false, true);
+        check("REPNE SCASW not found",      PREFIX_REPNEZ,SCAS_STR16,      0x1000, 0x7000, 0,      0x0100, 200,   0x3333, false, true);
+    }
+
+    /**
+     * Runs a case both ways, and compares the results.
+     *
+     * @param bulk
+     *            true if the case must run in bulk, i.e. with less than half of the single
+     *            accesses of the elements run element by element
+     */
+    private void check(String name, int prefix, int op, int ds, int es, int si, int di, int cx, int ax,
+                       boolean down, boolean bulk) {
+        State expected = execute(program(prefix, op, ds, es, si, di, cx, ax, down), true);
+        State actual = execute(program(prefix, op, ds, es, si, di, cx, ax, down), false);
+        // The accesses of the program around the string instruction
+        long overhead = execute(program(prefix, op, ds, es, si, di, 0, ax, down), false).accesses;
+
+        String failure = null;
+        if (!expected.registers.equals(actual.registers))
+            failure = "registers " + actual.registers + ", expected " + expected.registers;
+        else if (expected.memory != actual.memory)
+            failure = "memory differs";
+        else if (expected.time != actual.time)
+            failure = "time " + actual.time + ", expected " + expected.time;
+        else if (bulk && (actual.accesses - overhead) * 2 >= expected.accesses - overhead)
+            failure = "not run in bulk, " + actual.accesses + " accesses";
+
+        if (failure != null) {
+            failures++;
+            System.out.println("FAILED " + name + ": " + failure);
+        } else {
+            System.out.println("ok     " + name + ": " + actual.registers + " in " + actual.accesses + " accesses, "
+                    + expected.accesses + " element by element");
+        }
+    }
+
+    private static int[] program(int prefix, int op, int ds, int es, int si, int di, int cx, int ax, boolean down) {
+        return new int[] {
+                0xb8, ds & 0xff, ds >>> 8,          // MOV AX,ds
+                0x8e, 0xd8,                         // MOV DS,AX
+                0xb8, es & 0xff, es >>> 8,          // MOV AX,es
+                0x8e, 0xc0,                         // MOV ES,AX
+                0xb8, ax & 0xff, ax >>> 8,          // MOV AX,ax
+                0xb9, cx & 0xff, cx >>> 8,          // MOV CX,cx
+                0xbe, si & 0xff, si >>> 8,          // MOV SI,si
+                0xbf, di & 0xff, di >>> 8,          // MOV DI,di
+                down ? STD : CLD,
+                prefix, op,
+                HLT
+        };
+    }
+
+    private static State execute(int[] program, boolean listened) {
+        CountingMemory memory = new CountingMemory();
+        Intel8086 cpu = new Intel8086(memory);
+        cpu.reset();
+        cpu.setPic(new NoInterrupts());
+
+        fill(memory);
+        for (int i = 0; i < program.length; i++)
+            memory.writeByte(CODE + i, program[i]);
+        if (listened) {
+            memory.addDataListener(new DataListener() {
+                @Override
+                public void dataReady(DataBus dataBus) {
+                }
+            });
+        }
+
+        cpu.getBusInterfaceUnit().getSegmentRegister("CS").setData(0);
+        cpu.getProgramCounter().setData(CODE);
+
+        State state = new State();
+        memory.accesses = 0;
+        for (int ticks = 0; ticks < 100 && cpu.tick(); ticks++)
+            ;
+        state.accesses = memory.accesses;
+
+        EU8086 eu = (EU8086) cpu.getExecutionUnit();
+        eu.advanceClock();
+        int regs[] = eu.getRegisterFile();
+        StringBuilder sb = new StringBuilder();
+        String names[] = {"AX", "CX", "DX", "BX", "SP", "BP", "SI", "DI"};
+        for (int i = 0; i < names.length; i++)
+            sb.append(names[i]).append('=').append(Integer.toHexString(regs[i] & 0xffff)).append(' ');
+        sb.append("flags=").append(Integer.toHexString(cpu.getStatusRegister().getData()));
+        state.registers = sb.toString();
+        state.time = cpu.getScheduler().getTime();
+
+        long hash = 1;
+        for (int addr = 0; addr < memory.size(); addr++)
+            hash = hash * 31 + memory.readByte(addr);
+        state.memory = hash;
+        return state;
+    }
+
+    /**
+     * Fills the data areas of the cases: ascending bytes, with the second CMPS block equal to
+     * the first but for the bytes at 0x5000:0x0100 + 37 and 0x5000:0x0300 + 43 (a high byte),
+     * the third CMPS block different but for a byte at 0x6000:0x0100 + 50, and the SCAS block
+     * 0x11 bytes with a 0x22 at 0x7000:0x0100 + 90.
+     */
+    private static void fill(MemoryManager memory) {
+        for (int addr = 0x10000; addr < 0x80000; addr++)
+            memory.writeByte(addr, addr * 7 >>> 3);
+        for (int off = 0; off < 0x1000; off++) {
+            memory.writeByte(0x50000 + off, memory.readByte(0x40000 + off));
+            memory.writeByte(0x60000 + off, ~memory.readByte(0x40000 + off));
+            memory.writeByte(0x70000 + off, 0x11);
+        }
+        memory.writeByte(0x50000 + 0x0100 + 37, ~memory.readByte(0x40000 + 0x0100 + 37));
+        memory.writeByte(0x50000 + 0x0300 + 43, ~memory.readByte(0x40000 + 0x0300 + 43));
+        memory.writeByte(0x60000 + 0x0100 + 50, memory.readByte(0x40000 + 0x0100 + 50));
+        memory.writeByte(0x70000 + 0x0100 + 90, 0x22);
+    }
+}
@@ -1,6 +1,7 @@
 package cc.emulator.ui.swing;
 
 import cc.emulator.core.MemoryManager;
+import cc.emulator.core.PhysicalMemory;
 import cc.emulator.core.computer.ProgramMemoryInfo;
 import cc.emulator.core.cpu.Cpu;
 import cc.emulator.core.cpu.Instruction;
@@ -34,9 +35,9 @@ public class InstructionPane extends JPanel{
     //Vector data = new Vector();
     Cpu cpu;
     ProgramMemoryInfo programMemoryInfo;
-    private final int[] memoryBase;
+    private final PhysicalMemory memoryBase;
 
-    public InstructionPane(Cpu cpu, ProgramMemoryInfo programMemoryInfo, int[] memoryBase){
+    public InstructionPane(Cpu cpu, ProgramMemoryInfo programMemoryInfo, PhysicalMemory memoryBase){
         super(new BorderLayout());
         this.cpu = cpu;
         this.programMemoryInfo = programMemoryInfo;
@@ -55,7 +56,7 @@ public class InstructionPane extends JPanel{
 
     }
 
-    private Vector<Instruction> decode(Cpu cpu, ProgramMemoryInfo programMemoryInfo, int[] memoryBase, int count) {
+    private Vector<Instruction> decode(Cpu cpu, ProgramMemoryInfo programMemoryInfo, PhysicalMemory memoryBase, int count) {
         currentAddress = cpu.currentAddress();
 
         Vector<Instruction> instructions = new Vector<Instruction>();
@@ -93,7 +94,7 @@ public class InstructionPane extends JPanel{
         InstructionDecoder decoder= cpu.getInstructionUnit().createDecoder(); //new Decoder8086();
         int currentAddr = currentAddress;
         for(int i=0; i<count; i++) {
-            if(currentAddr+offset+instructionQueue.getQueueSize() >=memoryBase.length )
+            if(currentAddr+offset+instructionQueue.getQueueSize() >=memoryBase.size() )
                 break;
 
             // Featch raw instruction
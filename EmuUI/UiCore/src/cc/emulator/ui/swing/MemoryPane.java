@@ -1,5 +1,6 @@
 package cc.emulator.ui.swing;
 
+import cc.emulator.core.PhysicalMemory;
 import cc.emulator.core.cpu.Instruction;
 
 import javax.swing.*;
@@ -13,21 +14,21 @@ import java.awt.*;
  */
 public class MemoryPane extends JPanel {
     static class MemoryBlock {
-        int[]base;
+        PhysicalMemory base;
         int offset;
         int size;
 
-        public MemoryBlock(int[] base, int offset, int size) {
+        public MemoryBlock(PhysicalMemory base, int offset, int size) {
             this.base = base;
             this.offset = offset;
             this.size = size;
         }
 
         int get(int pos){
-            return base[offset+pos];
+            return base.readByte(offset+pos);
         }
         void set(int pos, int value) {
-            base[offset+pos] = value;
+            base.writeByte(offset+pos, value);
         }
     } ;
 
@@ -43,7 +44,7 @@ public class MemoryPane extends JPanel {
         initUi();
     }
 
-    public MemoryPane(int[] base, int offset, int size){
+    public MemoryPane(PhysicalMemory base, int offset, int size){
         this(new MemoryBlock(base, offset, size));
     }
 
@@ -4,6 +4,7 @@ import cc.emulator.core.MemoryManager;
 import cc.emulator.core.cpu.Cpu;
 
 import java.util.HashMap;
+import java.util.Map;
 
 public abstract class AbstractMainBoard implements MainBoard{
     private MemoryManager memoryManager;
@@ -18,24 +19,54 @@ public abstract class AbstractMainBoard implements MainBoard{
     public AbstractMainBoard(){
         initComponents();
     }
+
+    /**
+     * Creates a fork of a board, see {@link #fork()}.
+     *
+     * @param parent
+     *            the board to fork
+     */
+    protected AbstractMainBoard(AbstractMainBoard parent){
+        memoryManager = parent.memoryManager.fork();
+        cpu = createCpu(memoryManager);
+        cpu.reset();
+        cpu.copyState(parent.cpu);
+
+        for (Map.Entry<String, ProgramMemoryInfo> entry : parent.programMemoryInfoMap.entrySet()) {
+            ProgramMemoryInfo programMemoryInfo = new ProgramMemoryInfo();
+            programMemoryInfo.base = entry.getValue().base;
+            programMemoryInfo.size = entry.getValue().size;
+            programMemoryInfo.resource = entry.getValue().resource;
+            programMemoryInfoMap.put(entry.getKey(), programMemoryInfo);
+        }
+    }
     void initComponents(){
         memoryManager =  createMemoryManager();
         cpu =  createCpu(memoryManager);
-        memoryManager.addDataListener(cpu.getMemoryAccessor().getDataTemporaryRegister());
     }
 
     @Override
     public MemoryManager getMemoryManager(){
         return memoryManager;
     }
+    /**
+     * Loads an image, from a file path or a class path resource, and records the loaded
+     * region under the image name, see {@link #getProgramMemoryInfo(String)}.
+     */
     @Override
     public int load(int base, String resource) throws Exception{
-        return memoryManager.load(base, resource);
+        ProgramMemoryInfo programMemoryInfo =  programMemoryInfoMap.get(resource);
+        if(programMemoryInfo==null){
+            programMemoryInfo =  new ProgramMemoryInfo();
+            programMemoryInfoMap.put(resource, programMemoryInfo);
+        }
+
+        return load(programMemoryInfo, base, resource);
     }
     public int load(ProgramMemoryInfo programMemoryInfo , int base, String resource) throws Exception{
         programMemoryInfo.base = base;
         programMemoryInfo.resource = resource;
-        programMemoryInfo.size = load(base, resource);
+        programMemoryInfo.size = memoryManager.load(base, resource);
 
         return programMemoryInfo.size;
     }
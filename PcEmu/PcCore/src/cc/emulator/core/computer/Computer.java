@@ -20,6 +20,15 @@ public interface Computer {
     abstract void reset();
     abstract void start();
 
+    /**
+     * Forks the computer, e.g. to run several machines from one booted machine: the fork
+     * has a fork of the main board (see {@link MainBoard#fork()}) and its own copy of the
+     * peripherals. It runs headless, with no display and no keyboard till attached.
+     *
+     * @return the fork
+     */
+    Computer fork();
+
     ProgramMemoryInfo getProgramMemoryInfo(String bios);
 
     Cpu getCpu();
@@ -20,4 +20,13 @@ public interface MainBoard {
     int load(int base, String resource)throws Exception;
 
     ProgramMemoryInfo getProgramMemoryInfo(String programName);
+
+    /**
+     * Forks the board, e.g. to run several machines from one booted machine: the fork runs
+     * on a fork of the memory (see {@link MemoryManager#fork()}), with a copy of the state
+     * of the CPU.
+     *
+     * @return the fork
+     */
+    MainBoard fork();
 }
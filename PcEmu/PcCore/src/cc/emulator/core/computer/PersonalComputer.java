@@ -26,6 +26,20 @@ public abstract class PersonalComputer implements Computer {
         initComponents();
     }
 
+    /**
+     * Creates a fork of a computer with a fork of its main board, the subclass copies the
+     * peripherals, see {@link #fork()}.
+     *
+     * @param parent
+     *            the computer to fork
+     */
+    protected PersonalComputer(PersonalComputer parent) {
+        configFile = parent.configFile;
+        properties = new Properties();
+        properties.putAll(parent.properties);
+        mainBoard = parent.mainBoard.fork();
+    }
+
     void initComponents(){
         properties =  new Properties();
         try {
@@ -57,17 +71,19 @@ public abstract class PersonalComputer implements Computer {
     protected ProgrammableInterruptController pic;
     protected ProgrammableIntervalTimer pit;
     protected ProgrammablePeripheralInterface ppi;
+    protected ExpandedMemory ems;   // null if no expanded memory board
     protected NetworkAdapter networkAdapter;
     protected AudioAdapter audioAdapter;
     protected VideoAdapter videoAdapter;
-    protected Display display;
-    protected KeyBoard keyBoard;
+    protected Display display;      // null if headless, e.g. a fork
+    protected KeyBoard keyBoard;    // null if headless
 
     protected void createPeripherals() {
         dma = createDmaController();
         pic = createProgrammableInterruptController();
         pit = createProgrammableIntervalTimer(pic);
         ppi = createProgrammablePeripheralInterface(pic);
+        ems = createExpandedMemory();
         videoAdapter = createVideoAdapter();
         display =  createDisplay();
 
@@ -114,11 +130,22 @@ public abstract class PersonalComputer implements Computer {
 
     protected abstract DirectMemoryAccess createDmaController();
 
+    protected abstract ExpandedMemory createExpandedMemory();
+
     public void start() {
-        display.run();
+        if (display != null)
+            display.run();
         mainBoard.run();
     }
 
+    /**
+     * Attaches a display and a keyboard to a headless computer, e.g. a fork to watch.
+     */
+    public void attachDisplay() {
+        display = createDisplay();
+        keyBoard = createKeyBoard();
+    }
+
 
     protected void loadBios(int base, String biosResource) throws Exception{
         mainBoard.loadBios(base, biosResource);
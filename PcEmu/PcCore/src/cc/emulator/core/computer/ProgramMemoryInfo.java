@@ -16,4 +16,8 @@ public class ProgramMemoryInfo{
     public int getSize() {
         return size;
     }
+
+    public String getResource() {
+        return resource;
+    }
 }
@@ -1,16 +1,68 @@
 package cc.emulator.core.computer;
 
 import cc.emulator.core.DisplayController;
+import cc.emulator.core.EventScheduler;
+import cc.emulator.core.MemoryManager;
+import cc.emulator.core.PhysicalMemory;
+
+import java.util.BitSet;
 
 public abstract class VideoAdapter implements DisplayController, Adapter {
-    private int[] memory;
+    private PhysicalMemory memory;
     int videoBase ; //  0xb8000;
     /** The registers accessed by the CPU. */
     private int[] registers;
 
-    public VideoAdapter(int[] memoryBase){
-        memory = memoryBase;
+    public VideoAdapter(PhysicalMemory memory){
+        this.memory = memory;
         registers = createRegister();
+        dirtyPageConsumer = addDirtyPageConsumer(memory);
+    }
+
+    /**
+     * Creates a copy of an adapter, e.g. for a fork of the machine.
+     *
+     * @param source
+     *            the adapter to copy
+     * @param memory
+     *            the memory of the copy, holding its video memory
+     */
+    protected VideoAdapter(VideoAdapter source, PhysicalMemory memory){
+        this.memory = memory;
+        registers = source.registers.clone();
+        videoBase = source.videoBase;
+        screenColumn = source.screenColumn;
+        screenRow = source.screenRow;
+        dirtyPageConsumer = addDirtyPageConsumer(memory);
+    }
+
+    /** The dirty page consumer id of the video memory, -1 if the memory does not track them. */
+    private final int dirtyPageConsumer;
+    /** Set when the screen changes other than by a write into the video memory. */
+    private boolean changed = true;
+
+    private static int addDirtyPageConsumer(PhysicalMemory memory) {
+        return memory instanceof MemoryManager ? ((MemoryManager) memory).addDirtyPageConsumer() : -1;
+    }
+
+    /**
+     * Returns if the screen could have changed since the last call, i.e. a page of the video
+     * memory shown has been written, or the registers or the screen size have changed. The
+     * display re-renders the screen only then.
+     *
+     * @return true if the screen must be re-rendered
+     */
+    public boolean isScreenDirty() {
+        boolean dirty = changed;
+        changed = false;
+        if (dirtyPageConsumer < 0)
+            return true;
+
+        BitSet pages = ((MemoryManager) memory).collectAndClear(dirtyPageConsumer);
+        int first = videoBase >>> MemoryManager.PAGE_SHIFT;
+        int last = (videoBase + 2 * screenColumn * screenRow - 1) >>> MemoryManager.PAGE_SHIFT;
+        int page = pages.nextSetBit(first);
+        return dirty || page >= 0 && page <= last;
     }
     protected abstract int[] createRegister();
 
@@ -28,6 +80,7 @@ public abstract class VideoAdapter implements DisplayController, Adapter {
 
     protected void setRegisterValue(int index, int val) {
         registers[index] = val;
+        changed = true;
     }
 
     public int getVideoBase(){
@@ -36,11 +89,19 @@ public abstract class VideoAdapter implements DisplayController, Adapter {
 
     public void setVideoBase(int videoBase) {
         this.videoBase = videoBase;
+        changed = true;
     }
 
     public void init(){
     }
 
+    /** The virtual clock of the machine, for the video timing, null if not set. */
+    protected EventScheduler scheduler;
+
+    public void setScheduler(EventScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
     int screenColumn;   // = 80;
     public int getScreenColumn(){
         return screenColumn;
@@ -53,21 +114,23 @@ public abstract class VideoAdapter implements DisplayController, Adapter {
 
     public void setScreenColumn(int screenColumn) {
         this.screenColumn = screenColumn;
+        changed = true;
     }
 
     public void setScreenRow(int screenRow) {
         this.screenRow = screenRow;
+        changed = true;
     }
 
     public int getCharacter(int row, int col) {
-        return memory[videoBase + 2 * (col + row * screenColumn)];       // cpu.memory[0xb8000 + 2 * (x + y * 80)];
+        return memory.readByte(videoBase + 2 * (col + row * screenColumn));       // cpu.memory[0xb8000 + 2 * (x + y * 80)];
     }
 
     public int getAttribute(int row, int col) {
-        return memory[videoBase + 2 * (col + row * screenColumn) + 1];   //  cpu.memory[0xb8000 + 2 * (x + y * 80) + 1];;
+        return memory.readByte(videoBase + 2 * (col + row * screenColumn) + 1);   //  cpu.memory[0xb8000 + 2 * (x + y * 80) + 1];;
     }
 
-    public int[] getMemoryBase() {
+    public PhysicalMemory getPhysicalMemory() {
         return memory;
     }
 
@@ -2,6 +2,7 @@ package cc.emulator.apps;
 
 import cc.emulator.computer.swing.IBMPC5150;
 import cc.emulator.core.MemoryManager;
+import cc.emulator.core.PhysicalMemory;
 import cc.emulator.core.computer.Computer;
 import cc.emulator.core.computer.ProgramMemoryInfo;
 import cc.emulator.core.cpu.*;
@@ -94,7 +95,7 @@ public class MyComputer {
         pcFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
     }
-    private Vector<Instruction> decode(Cpu cpu, ProgramMemoryInfo programMemoryInfo, int[] memoryBase, int count) {
+    private Vector<Instruction> decode(Cpu cpu, ProgramMemoryInfo programMemoryInfo, PhysicalMemory memoryBase, int count) {
         Vector<Instruction> instructions = new Vector<Instruction>();
         final int queueSize = cpu.getBusInterfaceUnit().getInstructionQueue().getQueueSize();
         InstructionQueue instructionQueue = new InstructionQueue(){
@@ -130,7 +131,7 @@ public class MyComputer {
         InstructionDecoder decoder= cpu.getInstructionUnit().createDecoder(); //new Decoder8086();
         for(int i=0; i<count; i++) {
             int currentAddr = cpu.currentAddress();
-            if(currentAddr+offset+cpu.getBusInterfaceUnit().getInstructionQueue().getQueueSize() >=memoryBase.length )
+            if(currentAddr+offset+cpu.getBusInterfaceUnit().getInstructionQueue().getQueueSize() >=memoryBase.size() )
                 break;
 
             // Featch raw instruction
@@ -145,7 +146,7 @@ public class MyComputer {
         return instructions;
     }
 
-    private Vector<Instruction> decode(ProgramMemoryInfo programMemoryInfo, int[] memoryBase, int count) {
+    private Vector<Instruction> decode(ProgramMemoryInfo programMemoryInfo, PhysicalMemory memoryBase, int count) {
         Vector<Instruction> instructions = new Vector<Instruction>();
         final int queueSize = computer.getMainBoard().getCpu().getBusInterfaceUnit().getInstructionQueue().getQueueSize();
         InstructionQueue instructionQueue = new InstructionQueue(){
@@ -186,7 +187,7 @@ public class MyComputer {
             instructionQueue.reset();
             // Fill the queue
             for(int i=0; i<queueSize; i++){
-                instructionQueue.fillInstructionQueue(memoryBase[pc]);
+                instructionQueue.fillInstructionQueue(memoryBase.readByte(pc));
 
                 pc++;
                 if(pc>=memoryUpper)
@@ -213,7 +214,7 @@ public class MyComputer {
         MemoryManager memoryManager = computer.getMainBoard().getMemoryManager();
         // prepare instructions dump from the computer's memory
         ProgramMemoryInfo programMemoryInfo = computer.getProgramMemoryInfo("bootloader");
-        int memoryBase [] = memoryManager.getMemoryBase();
+        PhysicalMemory memoryBase = memoryManager.getPhysicalMemory();
         int count = 20;
 
         instructionPane = new InstructionPane(cpu, programMemoryInfo, memoryBase);
@@ -236,7 +237,7 @@ public class MyComputer {
         contentPane.add(toolBar, BorderLayout.NORTH);
         contentPane.add(instructionPane, BorderLayout.WEST);
 
-        memoryPane= new MemoryPane(memoryManager.getMemoryBase(),0, 20);
+        memoryPane= new MemoryPane(memoryManager.getPhysicalMemory(),0, 20);
         contentPane.add(memoryPane, BorderLayout.CENTER);
 
         registerPane =  new RegisterPane();
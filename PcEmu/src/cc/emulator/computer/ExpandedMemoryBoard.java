@@ -0,0 +1,134 @@
+package cc.emulator.computer;
+
+import cc.emulator.core.ExpandedMemory;
+import cc.emulator.core.MemoryManager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Expanded memory (LIM EMS) board.
+ *
+ * The board holds a large memory in 16K banks, and four 16K windows of a 64K page frame in
+ * the upper memory area. Each window has a bank register at an I/O port, the bank written
+ * to it is mapped into the window; a bank number beyond the memory unmaps the window, which
+ * then reads as an open bus.
+ *
+ * A bank switch remaps the pages of the window in the memory manager to the pages of the
+ * bank, no byte is copied. The banks are allocated on their first mapping.
+ */
+public class ExpandedMemoryBoard implements ExpandedMemory {
+    public static final int PORT_BASE = 0x260;
+    public static final int FRAME_BASE = 0xd0000;
+    public static final int WINDOWS = 4;
+    public static final int BANK_SIZE = 0x4000;
+
+    private static final int BANK_PAGES = BANK_SIZE / MemoryManager.PAGE_SIZE;
+    private static final int UNMAPPED = 0xff;
+
+    private final MemoryManager memoryManager;
+
+    // Pages of each bank, null till the bank is first mapped
+    private final ByteBuffer[][] banks;
+
+    // Bank mapped into each window
+    private final int[] windows = new int[WINDOWS];
+
+    // Content of the unmapped windows
+    private final ByteBuffer openBus;
+
+    /**
+     * Creates a board and plugs its page frame, unmapped, into the memory.
+     *
+     * @param memoryManager
+     *            the memory to map the page frame into
+     * @param size
+     *            the expanded memory size in bytes, up to 255 banks of 16K
+     */
+    public ExpandedMemoryBoard(MemoryManager memoryManager, int size) {
+        this.memoryManager = memoryManager;
+        banks = new ByteBuffer[Math.min(size / BANK_SIZE, UNMAPPED)][];
+
+        byte[] ones = new byte[MemoryManager.PAGE_SIZE];
+        Arrays.fill(ones, (byte) 0xff);
+        openBus = ByteBuffer.wrap(ones).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int window = 0; window < WINDOWS; window++)
+            select(window, UNMAPPED);
+    }
+
+    /**
+     * Creates a copy of a board, with a copy of its banks, and plugs its page frame into
+     * another memory, e.g. for a fork of the machine.
+     *
+     * @param source
+     *            the board to copy
+     * @param memoryManager
+     *            the memory to map the page frame into
+     */
+    public ExpandedMemoryBoard(ExpandedMemoryBoard source, MemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+        banks = new ByteBuffer[source.banks.length][];
+        openBus = source.openBus;
+
+        for (int bank = 0; bank < banks.length; bank++) {
+            if (source.banks[bank] == null)
+                continue;
+            banks[bank] = new ByteBuffer[BANK_PAGES];
+            for (int i = 0; i < BANK_PAGES; i++)
+                banks[bank][i] = ByteBuffer.wrap(source.banks[bank][i].array().clone()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        for (int window = 0; window < WINDOWS; window++)
+            select(window, source.windows[window]);
+    }
+
+    public int getBankCount() {
+        return banks.length;
+    }
+
+    /**
+     * Maps a bank into a window of the page frame.
+     */
+    void select(int window, int bank) {
+        int addr = FRAME_BASE + window * BANK_SIZE;
+        if (bank >= banks.length) {
+            windows[window] = UNMAPPED;
+            for (int i = 0; i < BANK_PAGES; i++)
+                memoryManager.mapPage(addr + i * MemoryManager.PAGE_SIZE, MemoryManager.PAGE_ROM, openBus);
+            return;
+        }
+
+        if (banks[bank] == null) {
+            banks[bank] = new ByteBuffer[BANK_PAGES];
+            for (int i = 0; i < BANK_PAGES; i++)
+                banks[bank][i] = ByteBuffer.allocate(MemoryManager.PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        windows[window] = bank;
+        for (int i = 0; i < BANK_PAGES; i++)
+            memoryManager.mapPage(addr + i * MemoryManager.PAGE_SIZE, MemoryManager.PAGE_RAM, banks[bank][i]);
+    }
+
+    @Override
+    public boolean isConnected(final int port) {
+        return port >= PORT_BASE && port < PORT_BASE + WINDOWS;
+    }
+
+    @Override
+    public int portIn(final int w, final int port) {
+        int window = port - PORT_BASE;
+        int val = windows[window];
+        if (w == 1)
+            val |= (window + 1 < WINDOWS ? windows[window + 1] : UNMAPPED) << 8;
+        return val;
+    }
+
+    @Override
+    public void portOut(final int w, final int port, final int val) {
+        int window = port - PORT_BASE;
+        select(window, val & 0xff);
+        if (w == 1 && window + 1 < WINDOWS)
+            select(window + 1, val >>> 8 & 0xff);
+    }
+}
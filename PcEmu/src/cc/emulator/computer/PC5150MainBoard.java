@@ -1,12 +1,31 @@
 package cc.emulator.computer;
 
 import cc.emulator.core.computer.AbstractMainBoard;
+import cc.emulator.core.computer.MainBoard;
 import cc.emulator.x86.i8086.Intel8086;
 import cc.emulator.core.MemoryManager;
 import cc.emulator.core.cpu.Cpu;
 
+import java.io.File;
+import java.io.IOException;
+
 public class PC5150MainBoard extends AbstractMainBoard {
+    /**
+     * System property of the memory image file, the memory is on the heap if not set.
+     */
+    public static final String MEMORY_FILE = "cc.emulator.memory.file";
+
+    public PC5150MainBoard() {
+    }
 
+    protected PC5150MainBoard(PC5150MainBoard parent) {
+        super(parent);
+    }
+
+    @Override
+    public MainBoard fork() {
+        return new PC5150MainBoard(this);
+    }
 
     @Override
     public void reset() {
@@ -20,7 +39,21 @@ public class PC5150MainBoard extends AbstractMainBoard {
     }
 
     protected MemoryManager createMemoryManager(){
-        return new  MemoryManager();
+        MemoryManager mm = new  MemoryManager();
+        // IBM BIOS and BASIC are ROM.
+        mm.mapRom(0xf6000, 0x100000 - 0xf6000);
+
+        // Optionally back the memory with an image file, e.g. in /dev/shm
+        String memoryFile = System.getProperty(MEMORY_FILE);
+        if (memoryFile != null) {
+            try {
+                mm.mapRamFile(new File(memoryFile));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return mm;
     }
 
 }
@@ -137,10 +137,19 @@ public abstract class Display extends JPanel implements cc.emulator.core.compute
     @Override
     public void run() {
         new Timer().scheduleAtFixedRate(new TimerTask() {
+            // Cursor shown at the last refresh, -1 if hidden
+            int cursor = -1;
 
             @Override
             public void run() {
-                repaint();
+                // Re-render only if the video memory or the cursor has changed. The blink
+                // still re-renders twice a second, which also shows a write racing with the
+                // collection of the dirty pages.
+                int location = System.currentTimeMillis() % 1000 < 500 ? getCursorLocation() : -1;
+                if (videoAdapter.isScreenDirty() || location != cursor) {
+                    cursor = location;
+                    repaint();
+                }
             }
         }, 0, 1000 / 60); // Refresh at a 60 FPS rate.
 
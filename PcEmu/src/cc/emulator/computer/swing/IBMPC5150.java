@@ -1,5 +1,6 @@
 package cc.emulator.computer.swing;
 
+import cc.emulator.computer.ExpandedMemoryBoard;
 import cc.emulator.computer.PC5150MainBoard;
 import cc.emulator.core.*;
 import cc.emulator.core.computer.*;
@@ -12,6 +13,12 @@ import fr.neatmonster.ibmpc.*;
  * Date: 2017/7/25.
  */
 public class IBMPC5150 extends PersonalComputer {
+    /**
+     * System property of the expanded memory size in KB, no expanded memory board if not set.
+     * The board needs an EMS driver knowing its ports, and takes the D0000-DFFFF page frame.
+     */
+    public static final String EMS_SIZE = "cc.emulator.memory.ems";
+
         /*
      * External Components
      */
@@ -50,13 +57,24 @@ public class IBMPC5150 extends PersonalComputer {
         return new Intel8255(pic);
     }
 
+    /**
+     * LIM EMS - Expanded Memory Board
+     *
+     * @see ExpandedMemoryBoard
+     */
+    protected ExpandedMemory createExpandedMemory(){
+        Integer size = Integer.getInteger(EMS_SIZE);
+        if (size == null)
+            return null;
+        return new ExpandedMemoryBoard(getMainBoard().getMemoryManager(), size * 1024);
+    }
 
     /**
      *  new a DisplayController
      * @return DisplayController Motorola 6845 - Cathode Ray Tube Controller
      */
     protected VideoAdapter createVideoAdapter(){
-        return new Motorola6845(getMainBoard().getCpu().getMemoryManager().getMemoryBase());
+        return new Motorola6845(getMainBoard().getCpu().getMemoryManager().getPhysicalMemory());
     }
 
     /**
@@ -80,7 +98,7 @@ public class IBMPC5150 extends PersonalComputer {
      * The CGA, technically a peripheral, interacts directly with the CPU in
      * this implementation and by doing so does not use the I/O space.
      */
-    private  cc.emulator.core.Peripheral[] peripherals ;  // = new Peripheral[] { dma, pic, pit, ppi, videoAdapter };
+    private  cc.emulator.core.Peripheral[] peripherals ;  // = new Peripheral[] { dma, pic, pit, ppi, ems, videoAdapter };
 
 
     @Override
@@ -96,11 +114,21 @@ public class IBMPC5150 extends PersonalComputer {
     @Override
     public void reset() {
         super.reset();
+        connectPeripherals();
+    }
+
+    /**
+     * Connects the peripherals to the CPU, and to its virtual clock.
+     */
+    private void connectPeripherals() {
         Cpu cpu = getMainBoard().getCpu(0);
-        peripherals = new Peripheral[] { dma, pic, pit, ppi, videoAdapter};
+        peripherals = ems == null
+                ? new Peripheral[] { dma, pic, pit, ppi, videoAdapter}
+                : new Peripheral[] { dma, pic, pit, ppi, ems, videoAdapter};
         cpu.setPeripherals(peripherals);
         cpu.setPic(pic);
         cpu.setPit(pit);
+        videoAdapter.setScheduler(cpu.getScheduler());
     }
 
     @Override
@@ -113,4 +141,31 @@ public class IBMPC5150 extends PersonalComputer {
 
     }
 
+    /**
+     * Creates a fork of a computer, see {@link #fork()}. The fork has a copy of each
+     * peripheral, the expanded memory board maps its copy of the banks into the memory of
+     * the fork. There is no display nor keyboard till attached (see {@link #attachDisplay()}).
+     *
+     * @param parent
+     *            the computer to fork
+     */
+    protected IBMPC5150(IBMPC5150 parent) {
+        super(parent);
+        dma = new Intel8237((Intel8237) parent.dma);
+        pic = new Intel8259((Intel8259) parent.pic);
+        pit = new Intel8253((Intel8253) parent.pit, pic);
+        ppi = new Intel8255((Intel8255) parent.ppi, pic);
+        if (parent.ems != null)
+            ems = new ExpandedMemoryBoard((ExpandedMemoryBoard) parent.ems, getMainBoard().getMemoryManager());
+        videoAdapter = new Motorola6845((Motorola6845) parent.videoAdapter,
+                getMainBoard().getCpu().getMemoryManager().getPhysicalMemory());
+
+        connectPeripherals();
+    }
+
+    @Override
+    public IBMPC5150 fork() {
+        return new IBMPC5150(this);
+    }
+
 }
@@ -41,6 +41,21 @@ public class Intel8237 implements DirectMemoryAccess {
     /** The toggle for reading/writing. */
     private final boolean[] flipflop = new boolean[4];
 
+    public Intel8237() {
+    }
+
+    /**
+     * Creates a copy of a controller, e.g. for a fork of the machine.
+     *
+     * @param source
+     *            the controller to copy
+     */
+    public Intel8237(final Intel8237 source) {
+        System.arraycopy(source.addr, 0, addr, 0, addr.length);
+        System.arraycopy(source.cnt, 0, cnt, 0, cnt.length);
+        System.arraycopy(source.flipflop, 0, flipflop, 0, flipflop.length);
+    }
+
     /**
      * Returns if a peripheral is connected to the specified port.
      *
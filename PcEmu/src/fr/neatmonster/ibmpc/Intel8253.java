@@ -1,7 +1,9 @@
 package fr.neatmonster.ibmpc;
 
+import cc.emulator.core.EventScheduler;
 import cc.emulator.core.ProgrammableInterruptController;
 import cc.emulator.core.ProgrammableIntervalTimer;
+import cc.emulator.core.ScheduledEvent;
 
 /**
  * The Intel 8253 is a programmable counter/timer device designed for use as an
@@ -36,9 +38,20 @@ import cc.emulator.core.ProgrammableIntervalTimer;
  * - Digital One-Shot
  * - Complex Motor Controller
  *
+ * The counters are not stepped: each one keeps the time it was loaded, and its
+ * count and output are computed from the time elapsed on the virtual clock of
+ * the machine when they are read. The next rising edge of the output of
+ * counter 0, which raises IRQ0, is scheduled in advance on the clock.
+ *
+ * The gates are tied high, as counters 0 and 1 of the PC, so the modes 1 and 5
+ * wait for a gate trigger which never comes, with the output high.
+ *
  * @author Alexandre ADAMSKI <alexandre.adamski@etu.enseeiht.fr>
  */
 public class Intel8253 implements ProgrammableIntervalTimer {
+    /** The counters are clocked at a quarter of the CPU clock. */
+    public static final int CLOCK_DIVISOR = 4;
+
     /**
      * Intel 8259 - Programmable Interrupt Controller
      *
@@ -46,10 +59,22 @@ public class Intel8253 implements ProgrammableIntervalTimer {
      */
     private final ProgrammableInterruptController pic;
 
-    /** The actual value of each counter. */
+    /** The virtual clock of the machine. */
+    private EventScheduler scheduler;
+
+    /** The count of each counter while not counting. */
     private final int[]     count   = new int[3];
-    /** The initial value of each counter. */
+    /** The count register of each counter. */
     private final int[]     value   = new int[3];
+    /** The initial count of each counter since its start. */
+    private final int[]     initial = new int[3];
+    /**
+     * The initial count of the period in progress before the start, when a
+     * new count is loaded while counting in modes 2 and 3.
+     */
+    private final int[]     current = new int[3];
+    /** The time each counter started, in counter clocks. */
+    private final long[]    start   = new long[3];
     /** The latched value of each counter. */
     private final int[]     latch   = new int[3];
     /** The control word of each counter. */
@@ -58,15 +83,54 @@ public class Intel8253 implements ProgrammableIntervalTimer {
     private final boolean[] enabled = new boolean[3];
     /** Is each counter latched? */
     private final boolean[] latched = new boolean[3];
-    /** The state of each counter's output. */
-    private final boolean[] output  = new boolean[3];
     /** The toggle for lsb, then msb reading. */
     private final boolean[] toggle  = new boolean[3];
 
+    /** The next rising edge of the output of timer 0, which raises IRQ0. */
+    private final ScheduledEvent timer0 = new ScheduledEvent() {
+        @Override
+        public void fire(final long now) {
+            pic.callIRQ(0);
+            scheduleTimer0(getDeadline() / CLOCK_DIVISOR);
+        }
+    };
+
     public Intel8253(ProgrammableInterruptController pic) {
         this.pic = pic;
     }
 
+    @Override
+    public void setScheduler(final EventScheduler scheduler) {
+        if (this.scheduler != null)
+            this.scheduler.cancel(timer0);
+        this.scheduler = scheduler;
+        scheduleTimer0(now());
+    }
+
+    /**
+     * Creates a copy of a timer, e.g. for a fork of the machine. The copy
+     * counts on the clock given by {@link #setScheduler(EventScheduler)},
+     * which must be at the time of the timer copied.
+     *
+     * @param source
+     *            the timer to copy
+     * @param pic
+     *            the interrupt controller of the copy
+     */
+    public Intel8253(final Intel8253 source, final ProgrammableInterruptController pic) {
+        this.pic = pic;
+        System.arraycopy(source.count, 0, count, 0, 3);
+        System.arraycopy(source.value, 0, value, 0, 3);
+        System.arraycopy(source.initial, 0, initial, 0, 3);
+        System.arraycopy(source.current, 0, current, 0, 3);
+        System.arraycopy(source.start, 0, start, 0, 3);
+        System.arraycopy(source.latch, 0, latch, 0, 3);
+        System.arraycopy(source.control, 0, control, 0, 3);
+        System.arraycopy(source.enabled, 0, enabled, 0, 3);
+        System.arraycopy(source.latched, 0, latched, 0, 3);
+        System.arraycopy(source.toggle, 0, toggle, 0, 3);
+    }
+
     /**
      * Returns if a peripheral is connected to the specified port.
      *
@@ -80,22 +144,190 @@ public class Intel8253 implements ProgrammableIntervalTimer {
     }
 
     /**
-     * Sets the output state.
+     * Returns the current time, in counter clocks.
+     */
+    private long now() {
+        return scheduler == null ? 0 : scheduler.getTime() / CLOCK_DIVISOR;
+    }
+
+    /**
+     * Returns the number of clocks of an initial count, 0 standing for 65536.
+     */
+    private static int period(final int count) {
+        return count == 0 ? 0x10000 : count;
+    }
+
+    /**
+     * Returns if a counter reloads its count at the end of each period (modes
+     * 2 and 3).
+     */
+    private boolean isPeriodic(final int sc) {
+        return (control[sc] >>> 1 & 0b11) >= 0b10;
+    }
+
+    /**
+     * Returns if the mode of a counter waits for a gate trigger (modes 1 and 5).
+     */
+    private boolean isGateTriggered(final int sc) {
+        final int m = control[sc] >>> 1 & 0b111;
+        return m == 0b001 || m == 0b101;
+    }
+
+    /**
+     * Computes the actual value of a counter.
+     *
+     * @param sc
+     *            the timer
+     * @param t
+     *            the time, in counter clocks
+     * @return the count
+     */
+    private int count(final int sc, final long t) {
+        if (!enabled[sc] || isGateTriggered(sc))
+            return count[sc];
+
+        long e = t - start[sc];
+        int n = period(initial[sc]);
+        if (e < 0) {
+            // Still in the period in progress when the new count was loaded.
+            n = period(current[sc]);
+            e += n;
+        }
+        switch (control[sc] >>> 1 & 0b11) {
+        case 0b10: {
+            /*
+             * Mode 2: Rate Generator
+             *
+             * Divide by N counter. The output will be low for one
+             * period of the input clock. The period from one output
+             * pulse to the next equals the number of input counter in
+             * the count register. If the count register is reloaded
+             * between pulses the present period will not be affected,
+             * but the subsequent period will reflect the new value.
+             */
+            return n - (int) (e % n) & 0xffff;
+        }
+        case 0b11: {
+            /*
+             * Mode 3: Square Wave Rate Generator
+             *
+             * Similar to Mode 2 except that the output will remain high
+             * until one half of the count has been completed (or even
+             * numbers) and go low for the other half of the count. This
+             * is accomplished by decrementing the counter by two on the
+             * falling edge of each clock pulse. If the count is odd, the
+             * output will be high for (N + 1)/2 counts and low for
+             * (N - 1)/2 counts.
+             */
+            final int p = (int) (e % n);
+            final int high = n + 1 >>> 1;
+            // The full count is reloaded at each half, an odd one then
+            // decremented by 1 while high and by 3 while low.
+            if (p < high)
+                return (p == 0 ? n : n + (n & 1) - 2 * p) & 0xffff;
+            return (p == high ? n : (n & ~1) - 2 * (p - high)) & 0xffff;
+        }
+        default:
+            /*
+             * Mode 0: Interrupt on Terminal Count
+             * Mode 4: Software Triggered Strobe
+             *
+             * The counter counts down from the count loaded, and continues
+             * to decrement after terminal count has been reached.
+             */
+            return n - (int) e & 0xffff;
+        }
+    }
+
+    /**
+     * Computes the output state of a counter.
      *
      * @param sc
      *            the timer
-     * @param state
-     *            the output state
+     * @param t
+     *            the time, in counter clocks
+     * @return true if high
      */
-    private void output(final int sc, final boolean state) {
-        if (!output[sc] && state) {
-            switch (sc) {
-            case 0: // TIMER 0
-                pic.callIRQ(0);
+    private boolean output(final int sc, final long t) {
+        final int m = control[sc] >>> 1 & 0b111;
+        if (!enabled[sc])
+            return m != 0b000;
+
+        long e = t - start[sc];
+        int n = period(initial[sc]);
+        if (e < 0) {
+            n = period(current[sc]);
+            e += n;
+        }
+        switch (m) {
+        case 0b000:
+            /*
+             * Mode 0: the output will be initially low after the mode set
+             * operation. When terminal count is reached, the output will go
+             * high and remain high until the selected count register is
+             * reloaded with the mode or a new count is loaded.
+             */
+            return e >= n;
+        case 0b100:
+            /*
+             * Mode 4: the output will be initially high. When the count is
+             * exhausted, the output will go low for one clock period, then go
+             * high again.
+             */
+            return e != n;
+        case 0b010:
+        case 0b110:
+            return e % n != n - 1;
+        case 0b011:
+        case 0b111:
+            return e % n < n + 1 >>> 1;
+        default:
+            // Modes 1 and 5, waiting for a gate trigger.
+            return true;
+        }
+    }
+
+    /**
+     * Schedules the next rising edge of the output of timer 0 after the
+     * specified time, if any.
+     *
+     * @param t
+     *            the time, in counter clocks
+     */
+    private void scheduleTimer0(final long t) {
+        if (scheduler == null)
+            return;
+
+        long edge = -1;
+        if (enabled[0]) {
+            final long e = t - start[0];
+            final int n = period(initial[0]);
+            switch (control[0] >>> 1 & 0b111) {
+            case 0b000:
+                // Once, at terminal count.
+                if (e < n)
+                    edge = start[0] + n;
+                break;
+            case 0b100:
+                // Once, after the strobe.
+                if (e < n + 1)
+                    edge = start[0] + n + 1;
+                break;
+            case 0b010:
+            case 0b110:
+            case 0b011:
+            case 0b111:
+                // At the reload of each period, the first one at the start
+                // if a new count is pending.
+                edge = e < 0 ? start[0] : start[0] + (e / n + 1) * n;
                 break;
             }
         }
-        output[sc] = state;
+
+        if (edge < 0)
+            scheduler.cancel(timer0);
+        else
+            scheduler.schedule(timer0, edge * CLOCK_DIVISOR);
     }
 
     /**
@@ -116,13 +348,14 @@ public class Intel8253 implements ProgrammableIntervalTimer {
         case 0b10:
             // Read operation.
             final int rl = control[sc] >>> 4 & 0b11;
-            // Use latch if set.
-            int val = count[sc];
+            // Use latch if set, till its msb is read.
+            int val;
             if (latched[sc]) {
                 val = latch[sc];
-                if (rl < 0b11 || !toggle[sc])
+                if (rl < 0b11 || toggle[sc])
                     latched[sc] = false;
-            }
+            } else
+                val = count(sc, now());
             switch (rl) {
             case 0b01: // Read least significant byte only.
                 return val & 0xff;
@@ -159,7 +392,6 @@ public class Intel8253 implements ProgrammableIntervalTimer {
         case 0b01:
         case 0b10: {
             // Counter loading.
-            final int m = control[sc] >>> 1 & 0b111;
             final int rl = control[sc] >>> 4 & 0b11;
             switch (rl) {
             case 0b01: // Load least significant byte only.
@@ -179,120 +411,56 @@ public class Intel8253 implements ProgrammableIntervalTimer {
                 break;
             }
             if (rl < 0b11 || !toggle[sc]) {
-                count[sc] = value[sc];
-                enabled[sc] = true;
-                output[sc] = m == 0b10 || m == 0b11;
+                final long t = now();
+                if (enabled[sc] && isPeriodic(sc)) {
+                    // The present period is not affected, the new count
+                    // starts at its end.
+                    final long e = t - start[sc];
+                    if (e >= 0) {
+                        final int n = period(initial[sc]);
+                        current[sc] = initial[sc];
+                        start[sc] += (e / n + 1) * n;
+                    }
+                } else {
+                    // The counter (re)starts counting from the new count.
+                    count[sc] = value[sc];
+                    start[sc] = t;
+                    enabled[sc] = true;
+                }
+                initial[sc] = value[sc];
+                if (sc == 0)
+                    scheduleTimer0(t);
             }
             break;
         }
         case 0b11:
             sc = val >>> 6 & 0b11;
+            if (sc == 0b11)
+                break;
             if ((val >>> 4 & 0b11) == 0b00) {
                 // Counter latching.
-                latch[sc] = count[sc];
+                latch[sc] = count(sc, now());
                 latched[sc] = true;
-            } else
-                // Counter programming.
+            } else {
+                // Counter programming, the counter holds till a count is loaded.
+                count[sc] = count(sc, now());
+                enabled[sc] = false;
                 control[sc] = val & 0xffff;
+                if (sc == 0)
+                    scheduleTimer0(now());
+            }
             break;
         }
     }
 
     /**
-     * Update all 3 counters.
+     * Returns the output state of a counter, e.g. for the speaker on timer 2.
+     *
+     * @param sc
+     *            the timer
+     * @return true if high
      */
-    @Override
-    public void tick() {
-        for (int sc = 0b00; sc < 0b11; ++sc)
-            if (enabled[sc])
-                switch (control[sc] >>> 1 & 0b111) {
-                case 0b00:
-                    /*
-                     * Mode 0: Interrupt on Terminal Count
-                     *
-                     * The output will be initially low after the mode set
-                     * operation. After the count is loaded into the selected
-                     * count register, the output will remain low and the
-                     * counter will count. When terminal count is reached, the
-                     * output will go high and remain high until the selected
-                     * count register is reloaded with the mode or a new count
-                     * is loaded. The counter continues to decrement after
-                     * terminal count has been reached.
-                     */
-                    // Decrement count.
-                    count[sc] = --count[sc] & 0xffff;
-                    if (count[sc] == 0)
-                        output(sc, true);
-                    break;
-                case 0b10:
-                    /*
-                     * Mode 2: Rate Generator
-                     *
-                     * Divide by N counter. The output will be low for one
-                     * period of the input clock. The period from one output
-                     * pulse to the next equals the number of input counter in
-                     * the count register. If the count register is reloaded
-                     * between pulses the present period will not be affected,
-                     * but the subsequent period will reflect the new value.
-                     *
-                     * The gate input, when low, will force the output high.
-                     * When the gate input goes high, the counter will start
-                     * from the initial count. This, the gate input can be used
-                     * to synchronize the counter.
-                     *
-                     * When this mode is set; the output will remain high until
-                     * after the count register is loaded. The output can also
-                     * be synchronized by software.
-                     */
-                    // Decrement count.
-                    count[sc] = --count[sc] & 0xffff;
-
-                    // Reload count if necessary.
-                    if (count[sc] == 1) {
-                        count[sc] = value[sc];
-                        output(sc, false);
-                    } else
-                        output(sc, true);
-                    break;
-                case 0b11:
-                    /*
-                     * Mode 3: Square Wave Rate Generator
-                     *
-                     * Similar to Mode 2 except that the output will remain high
-                     * until one half of the count has been completed (or even
-                     * numbers) and go low for the other half of the count. This
-                     * is accomplished by decrementing the counter by two on the
-                     * falling edge of each clock pulse. When the counter
-                     * reaches terminal count, the state of the output is
-                     * changed and the counter is reloaded with the full count
-                     * and the whole process is repeated.
-                     *
-                     * If the count is odd and the output is high, the first
-                     * clock pulse (after the count is loaded) decrements the
-                     * count by 1. Subsequent clock pulses decrement the clock
-                     * by 2. After timeout, the output goes low and the full
-                     * count is reloaded. The first clock pulse (following) the
-                     * reload decrements the counter by 3. Subsequent clock
-                     * pulses decrements the count by 2 until timeout. Then the
-                     * while process is repeated. In this way, if the count is
-                     * odd, the output will be high for (N + 1)/2 counts and low
-                     * for (N - 1)/2 counts.
-                     */
-                    // Decrement count.
-                    if ((count[sc] & 0b1) == 0b1) {
-                        if (output[sc])
-                            count[sc] = count[sc] - 1 & 0xffff;
-                        else
-                            count[sc] = count[sc] - 3 & 0xffff;
-                    } else
-                        count[sc] = count[sc] - 2 & 0xffff;
-
-                    // Reload count if necessary.
-                    if (count[sc] == 0) {
-                        count[sc] = value[sc];
-                        output(sc, !output[sc]);
-                    }
-                    break;
-                }
+    public boolean getOutput(final int sc) {
+        return output(sc, now());
     }
 }
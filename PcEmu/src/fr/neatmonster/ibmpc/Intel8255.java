@@ -40,6 +40,19 @@ public class Intel8255 implements ProgrammablePeripheralInterface {
         ports[0] = 0x2c;
     }
 
+    /**
+     * Creates a copy of an interface, e.g. for a fork of the machine.
+     *
+     * @param source
+     *            the interface to copy
+     * @param pic
+     *            the interrupt controller of the copy
+     */
+    public Intel8255(final Intel8255 source, final ProgrammableInterruptController pic) {
+        this.pic = pic;
+        System.arraycopy(source.ports, 0, ports, 0, ports.length);
+    }
+
     /**
      * Returns if a peripheral is connected to the specified port.
      *
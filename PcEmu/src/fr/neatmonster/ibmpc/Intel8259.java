@@ -61,6 +61,23 @@ public class Intel8259 implements ProgrammableInterruptController {
     /** Keeps track of initialization progress. */
     private int         icwStep = 0;
 
+    public Intel8259() {
+    }
+
+    /**
+     * Creates a copy of a controller, e.g. for a fork of the machine.
+     *
+     * @param source
+     *            the controller to copy
+     */
+    public Intel8259(final Intel8259 source) {
+        imr = source.imr;
+        irr = source.irr;
+        isr = source.isr;
+        System.arraycopy(source.icw, 0, icw, 0, icw.length);
+        icwStep = source.icwStep;
+    }
+
     /**
      * Call an interruption request on the specified line.
      *
@@ -1,5 +1,6 @@
 package fr.neatmonster.ibmpc;
 
+import cc.emulator.core.PhysicalMemory;
 import cc.emulator.core.computer.VideoAdapter;
 
 /**
@@ -15,19 +16,75 @@ import cc.emulator.core.computer.VideoAdapter;
  * control; whereas the CRTC provides video timing and Refresh Memory
  * Addressing.
  *
+ * The retrace status is derived from the virtual clock of the machine and the
+ * programmed horizontal and vertical totals, so it does not depend on how often
+ * a program polls it. Optionally (see {@link #setFastForward(boolean)}), while
+ * a program spins on the status port waiting for a change, the clock is
+ * fast-forwarded to the next edge of the status.
+ *
  * @author Alexandre ADAMSKI <alexandre.adamski@etu.enseeiht.fr>
  */
 public class Motorola6845 extends VideoAdapter {
     /** The index of the register to access. */
     private int         index;
 
-    /** Vertical/horizontal retracing. */
+    /** Vertical/horizontal retracing, without a virtual clock. */
     private int         retrace;
 
-    public Motorola6845(int[] memoryBase) {
-        super(memoryBase);
+    /** The mode control register of the CGA. */
+    private int         mode;
+
+    /** Status bit, display enable inactive (horizontal or vertical blanking). */
+    public final static int STATUS_BLANKING = 0x01;
+    /** Status bit, vertical retrace. */
+    public final static int STATUS_VERTICAL_RETRACE = 0x08;
+
+    /** The dot clock is 3 times the CPU clock (14.318 MHz). */
+    final static int DOTS_PER_CYCLE = 3;
+    /** The vertical sync lasts 16 scan lines. */
+    final static int VSYNC_LINES = 16;
+    /** Status reads closer than this (in cycles) with no change are a polling loop. */
+    final static int SPIN_CYCLES = 100;
+
+    /** Fast-forward the polling loops of the status, off by default. */
+    private boolean     fastForward = false;
+
+    /** Time and value of the last status read, to detect the polling loops. */
+    private long        lastStatusTime = -1;
+    private int         lastStatus;
+    private int         spins;
+
+    // Timing computed from the registers, in dots and scan lines
+    private int         charDots;
+    private int         lineDots;
+    private int         hDisplayDots;
+    private int         frameLines;
+    private int         vDisplayLines;
+    private int         vSyncLine;
+
+    public Motorola6845(PhysicalMemory memory) {
+        super(memory);
         setVideoBase(VIDEO_BASE);
     }
+
+    /**
+     * Creates a copy of a controller, e.g. for a fork of the machine.
+     *
+     * @param source
+     *            the controller to copy
+     * @param memory
+     *            the memory of the copy, holding its video memory
+     */
+    public Motorola6845(Motorola6845 source, PhysicalMemory memory) {
+        super(source, memory);
+        index = source.index;
+        retrace = source.retrace;
+        mode = source.mode;
+        fastForward = source.fastForward;
+        lastStatusTime = source.lastStatusTime;
+        lastStatus = source.lastStatus;
+        spins = source.spins;
+    }
     protected int[] createRegister(){
         return new int[0x10];
     }
@@ -58,6 +115,9 @@ public class Motorola6845 extends VideoAdapter {
     public int portIn(final int w, final int port) {
         switch (port) {
         case 0x3da:
+            if (scheduler != null)
+                return readStatus();
+
             // Simulate vertical/horizontal retracing.
             retrace = ++retrace % 4;
             switch (retrace) {
@@ -93,9 +153,124 @@ public class Motorola6845 extends VideoAdapter {
         case 0x3d5: // Register
             setRegisterValue(index, val);   //  registers[index] = val;
             break;
+        case 0x3d8: // Mode control
+            mode = val;
+            break;
         }
     }
 
+    /**
+     * Turns on or off the fast-forward of the status polling loops. It speeds up the
+     * programs waiting for the retrace, but breaks those counting their polls in a frame,
+     * as a loop polling the same status three times within {@link #SPIN_CYCLES} cycles
+     * jumps to the next change of the status.
+     *
+     * @param fastForward
+     *            true to fast-forward the polling loops
+     */
+    public void setFastForward(boolean fastForward) {
+        this.fastForward = fastForward;
+    }
+
+    /**
+     * Computes the frame timing from the registers, the 80x25 text timing if they are not
+     * programmed yet.
+     */
+    private void updateTiming() {
+        int hTotal = getRegister(0x0) + 1;
+        int hDisplayed = getRegister(0x1);
+        int vTotal = getRegister(0x4) + 1;
+        int vAdjust = getRegister(0x5);
+        int vDisplayed = getRegister(0x6);
+        int vSync = getRegister(0x7);
+        int rowLines = getRegister(0x9) + 1;
+        // 8 dots per character in 80 columns text mode, 16 otherwise
+        charDots = (mode & 0x01) != 0 ? 8 : 16;
+        if (hTotal == 1 || vTotal == 1) {
+            hTotal = 114;
+            hDisplayed = 80;
+            vTotal = 32;
+            vAdjust = 6;
+            vDisplayed = 25;
+            vSync = 28;
+            rowLines = 8;
+            charDots = 8;
+        }
+
+        lineDots = hTotal * charDots;
+        hDisplayDots = Math.min(hDisplayed, hTotal) * charDots;
+        frameLines = vTotal * rowLines + vAdjust;
+        vDisplayLines = vDisplayed * rowLines;
+        vSyncLine = vSync * rowLines;
+    }
+
+    /**
+     * Computes the status at a time.
+     *
+     * @param dots
+     *            the time, in dots
+     * @return the status
+     */
+    private int status(final long dots) {
+        final long frameDots = (long) lineDots * frameLines;
+        final int pos = (int) (dots % frameDots);
+        final int line = pos / lineDots;
+        final int column = pos % lineDots;
+
+        int status = 0;
+        if (line >= vDisplayLines || column >= hDisplayDots)
+            status |= STATUS_BLANKING;
+        if (line >= vSyncLine && line < vSyncLine + VSYNC_LINES)
+            status |= STATUS_VERTICAL_RETRACE;
+        return status;
+    }
+
+    /**
+     * Finds the next change of the status after a time.
+     *
+     * @param dots
+     *            the time, in dots
+     * @return the time of the change, in dots, or -1 if the status never changes
+     */
+    private long nextStatusEdge(final long dots) {
+        final int status = status(dots);
+        long time = dots;
+        for (int i = 0; i <= 2 * frameLines; i++) {
+            final int column = (int) (time % lineDots);
+            time += column < hDisplayDots ? hDisplayDots - column : lineDots - column;
+            if (status(time) != status)
+                return time;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the status register, derived from the virtual clock.
+     */
+    private int readStatus() {
+        updateTiming();
+        long now = scheduler.getTime();
+        int status = status(now * DOTS_PER_CYCLE);
+
+        // Polling the status with no change, skip the wait to the next change
+        if (status == lastStatus && now - lastStatusTime < SPIN_CYCLES)
+            spins++;
+        else
+            spins = 0;
+        if (fastForward && spins > 2) {
+            long edge = nextStatusEdge(now * DOTS_PER_CYCLE);
+            if (edge >= 0) {
+                now = scheduler.fastForward((edge + DOTS_PER_CYCLE - 1) / DOTS_PER_CYCLE);
+                status = status(now * DOTS_PER_CYCLE);
+            }
+            spins = 0;
+        }
+
+        lastStatus = status;
+        lastStatusTime = now;
+        return status;
+    }
+
     final static int SCREEN_COLUMN = 80;
     final static int SCREEN_ROW = 25;
     final static int VIDEO_BASE = 0xb8000;
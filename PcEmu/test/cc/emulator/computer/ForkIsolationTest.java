@@ -0,0 +1,156 @@
+package cc.emulator.computer;
+
+import cc.emulator.core.MemoryManager;
+import cc.emulator.core.cpu.MemoryAccessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Checks that a fork of the memory and its parent never see the writes of each other, for the
+ * copy-on-write RAM pages, the banks of an expanded memory board, and the pages of a memory
+ * image file. Each write path is covered: byte, word across pages, and the bulk fill and copy.
+ *
+ * Run with: java cc.emulator.computer.ForkIsolationTest
+ */
+public class ForkIsolationTest {
+    private static final int PAGE = MemoryManager.PAGE_SIZE;
+    private static final int EMS_PORT = ExpandedMemoryBoard.PORT_BASE;
+    private static final int FRAME = ExpandedMemoryBoard.FRAME_BASE;
+
+    private int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        ForkIsolationTest test = new ForkIsolationTest();
+        test.testRam();
+        test.testExpandedMemory();
+        test.testRamFile();
+        System.out.println(test.failures == 0 ? "All checks passed" : test.failures + " checks failed");
+        if (test.failures > 0)
+            System.exit(1);
+    }
+
+    void testRam() {
+        MemoryManager parent = new MemoryManager();
+        parent.reset();
+        for (int addr = 0x10000; addr < 0x20000; addr++)
+            parent.writeByte(addr, addr);
+        MemoryManager child = parent.fork();
+
+        check("RAM shared after the fork", child.readWord(0x10100), parent.readWord(0x10100));
+
+        child.writeByte(0x10100, 0xaa);
+        check("RAM byte written by the child", child.readByte(0x10100), 0xaa);
+        check("RAM byte kept by the parent", parent.readByte(0x10100), 0x00);
+
+        parent.writeByte(0x10200, 0xbb);
+        check("RAM byte written by the parent", parent.readByte(0x10200), 0xbb);
+        check("RAM byte kept by the child", child.readByte(0x10200), 0x00);
+
+        // A word across two shared pages
+        int across = 0x12000 + PAGE - 1;
+        child.writeWord(across, 0x1234);
+        check("RAM word across pages written by the child", child.readWord(across), 0x1234);
+        check("RAM word across pages kept by the parent", parent.readWord(across), (across + 1 & 0xff) << 8 | across & 0xff);
+
+        child.fill(0x14000, PAGE, MemoryAccessor.BYTE2, 0x5a5a);
+        check("RAM fill by the child", child.readWord(0x14000 + PAGE), 0x5a5a);
+        check("RAM fill kept by the parent", parent.readWord(0x14000 + PAGE), 0x0100);
+
+        parent.copy(0x16000, 0x18000, 2 * PAGE);
+        check("RAM copy by the parent", parent.readByte(0x16000 + PAGE + 3), 0x03);
+        check("RAM copy kept by the child", child.readByte(0x16000 + PAGE + 3), 0x03 + PAGE & 0xff);
+        check("RAM copy kept by the child, high page", child.readByte(0x17003), 0x03);
+
+        // A fork of the fork, the pages are still shared by three memories
+        MemoryManager grandchild = child.fork();
+        grandchild.writeByte(0x1f000, 0xcc);
+        check("RAM byte written by the fork of the fork", grandchild.readByte(0x1f000), 0xcc);
+        check("RAM byte kept by the child of the fork", child.readByte(0x1f000), 0x00);
+        check("RAM byte kept by the parent of the fork", parent.readByte(0x1f000), 0x00);
+    }
+
+    void testExpandedMemory() {
+        MemoryManager parent = new MemoryManager();
+        parent.reset();
+        ExpandedMemoryBoard parentBoard = new ExpandedMemoryBoard(parent, 0x40000);
+        // Bank 3 into window 0, bank 5 into window 1
+        parentBoard.portOut(1, EMS_PORT, 5 << 8 | 3);
+        parent.writeWord(FRAME, 0x3333);
+        parent.writeWord(FRAME + ExpandedMemoryBoard.BANK_SIZE, 0x5555);
+
+        MemoryManager child = parent.fork();
+        ExpandedMemoryBoard childBoard = new ExpandedMemoryBoard(parentBoard, child);
+        check("EMS bank seen by the fork", child.readWord(FRAME), 0x3333);
+
+        child.writeWord(FRAME, 0xc3c3);
+        check("EMS bank written by the child", child.readWord(FRAME), 0xc3c3);
+        check("EMS bank kept by the parent", parent.readWord(FRAME), 0x3333);
+
+        parent.fill(FRAME + ExpandedMemoryBoard.BANK_SIZE, 16, MemoryAccessor.BYTE1, 0x77);
+        check("EMS fill by the parent", parent.readWord(FRAME + ExpandedMemoryBoard.BANK_SIZE), 0x7777);
+        check("EMS fill kept by the child", child.readWord(FRAME + ExpandedMemoryBoard.BANK_SIZE), 0x5555);
+
+        // Switching a bank of the child leaves the mapping of the parent
+        childBoard.portOut(0, EMS_PORT, 5);
+        check("EMS bank switched by the child", child.readWord(FRAME), 0x5555);
+        check("EMS mapping kept by the parent", parent.readWord(FRAME), 0x3333);
+        check("EMS bank register kept by the parent", parentBoard.portIn(0, EMS_PORT), 3);
+
+        // The bank written by the child before the switch is still its own
+        childBoard.portOut(0, EMS_PORT, 3);
+        check("EMS bank of the child after switching back", child.readWord(FRAME), 0xc3c3);
+    }
+
+    void testRamFile() throws IOException {
+        File file = File.createTempFile("fork", ".img");
+        file.deleteOnExit();
+        try {
+            MemoryManager parent = new MemoryManager();
+            parent.reset();
+            parent.mapRamFile(file);
+            parent.writeWord(0x20000, 0x1111);
+            parent.writeWord(0x21000 - 1, 0x2222);
+
+            MemoryManager child = parent.fork();
+            check("Image page seen by the fork", child.readWord(0x20000), 0x1111);
+
+            child.writeWord(0x20000, 0x9999);
+            child.writeWord(0x21000 - 1, 0x8888);
+            child.fill(0x22000, 8, MemoryAccessor.BYTE1, 0x66);
+            parent.flushRamFile();
+            check("Image page written by the child", child.readWord(0x20000), 0x9999);
+            check("Image page kept by the parent", parent.readWord(0x20000), 0x1111);
+            check("Image word across pages kept by the parent", parent.readWord(0x21000 - 1), 0x2222);
+            check("Image file kept from the child", readFileWord(file, 0x20000), 0x1111);
+            check("Image file kept from the child fill", readFileWord(file, 0x22000), 0x0000);
+
+            parent.writeWord(0x20002, 0x4444);
+            parent.flushRamFile();
+            check("Image file written by the parent", readFileWord(file, 0x20002), 0x4444);
+            check("Image page kept by the child", child.readWord(0x20002), 0x0000);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static int readFileWord(File file, int addr) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.seek(addr);
+            return raf.read() | raf.read() << 8;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void check(String name, int actual, int expected) {
+        if (actual == expected) {
+            System.out.println("ok     " + name);
+        } else {
+            failures++;
+            System.out.println("FAILED " + name + ": " + Integer.toHexString(actual) + ", expected " + Integer.toHexString(expected));
+        }
+    }
+}
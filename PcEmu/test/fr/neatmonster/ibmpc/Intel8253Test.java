@@ -0,0 +1,231 @@
+package fr.neatmonster.ibmpc;
+
+import cc.emulator.core.EventScheduler;
+import cc.emulator.core.ProgrammableInterruptController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the counters of {@link Intel8253}, computed from the time elapsed, against counters
+ * stepped one clock at a time as the datasheet describes them, in modes 0, 2, 3 and 4. Random
+ * runs program the counters, load new counts, mid-period included, and read the counts, latched
+ * or not, one byte at a time. The counts and outputs must match at every read and every clock,
+ * and IRQ0 must be raised at each rising edge of the output of counter 0.
+ *
+ * Run with: java fr.neatmonster.ibmpc.Intel8253Test
+ */
+public class Intel8253Test {
+    private static final int[] MODES = {0, 2, 3, 4};
+
+    /** Records the times IRQ0 is raised. */
+    class RecordingPic implements ProgrammableInterruptController {
+        final List<Long> irqs = new ArrayList<Long>();
+
+        public void callIRQ(int line) {
+            if (line == 0)
+                irqs.add(scheduler.getTime());
+        }
+
+        public boolean hasInt() { return false; }
+        public int nextInt() { return 0; }
+        public int portIn(int w, int port) { return 0; }
+        public void portOut(int w, int port, int val) { }
+        public boolean isConnected(int port) { return false; }
+    }
+
+    /**
+     * A counter stepped at each clock. A new count loaded while counting in modes 2 and 3 is
+     * taken at the next reload of the full count, i.e. at the next rising edge of the output.
+     */
+    static class SteppedCounter {
+        int mode;
+        int count;
+        int reload;
+        int pending = -1;
+        // Control word 0 at power on, i.e. mode 0 with the output low
+        boolean output = false;
+        boolean counting;
+        boolean strobed;
+
+        void program(int mode) {
+            this.mode = mode;
+            counting = false;
+            pending = -1;
+            output = mode != 0;
+        }
+
+        void load(int value) {
+            if (counting && (mode == 2 || mode == 3)) {
+                pending = value;
+                return;
+            }
+            count = reload = value;
+            output = mode != 0;
+            strobed = false;
+            counting = true;
+        }
+
+        /**
+         * Steps one clock.
+         *
+         * @return true on a rising edge of the output
+         */
+        boolean clock() {
+            if (!counting)
+                return false;
+            boolean previous = output;
+            switch (mode) {
+                case 0:
+                    // Low till terminal count, then high
+                    count = count - 1 & 0xffff;
+                    if (count == 0)
+                        output = true;
+                    break;
+                case 4:
+                    // Low for one clock after the first terminal count
+                    count = count - 1 & 0xffff;
+                    output = count != 0 || strobed;
+                    if (count == 0)
+                        strobed = true;
+                    break;
+                case 2:
+                    // Low for the clock at count 1, reloaded at 0
+                    count = count - 1 & 0xffff;
+                    if (count == 0)
+                        count = takeReload();
+                    output = count != 1;
+                    break;
+                case 3:
+                    // By 2, an odd count by 1 first while high and by 3 first while low
+                    count = count - ((count & 1) == 0 ? 2 : output ? 1 : 3) & 0xffff;
+                    if (count == 0) {
+                        output = !output;
+                        count = output ? takeReload() : reload;
+                    }
+                    break;
+            }
+            return output && !previous;
+        }
+
+        private int takeReload() {
+            if (pending >= 0) {
+                reload = pending;
+                pending = -1;
+            }
+            return reload;
+        }
+    }
+
+    private final EventScheduler scheduler = new EventScheduler();
+    private final RecordingPic pic = new RecordingPic();
+    private final Intel8253 timer = new Intel8253(pic);
+    private final SteppedCounter[] counters = {new SteppedCounter(), new SteppedCounter(), new SteppedCounter()};
+    private final List<Long> edges = new ArrayList<Long>();
+    private final Random random;
+    private int failures = 0;
+
+    Intel8253Test(long seed) {
+        random = new Random(seed);
+        timer.setScheduler(scheduler);
+    }
+
+    public static void main(String[] args) {
+        Intel8253Test test = new Intel8253Test(args.length > 0 ? Long.parseLong(args[0]) : 8253);
+        test.run(200000);
+        System.out.println(test.pic.irqs.size() + " IRQ0 raised, " + test.failures + " failures");
+        if (test.failures > 0)
+            System.exit(1);
+    }
+
+    void run(int actions) {
+        // Never programmed, a counter has no read/load mode
+        for (int sc = 0; sc < 3; sc++) {
+            program(sc, MODES[random.nextInt(MODES.length)]);
+            load(sc, count(counters[sc].mode));
+        }
+
+        for (int action = 0; action < actions; action++) {
+            int sc = random.nextInt(3);
+            switch (random.nextInt(8)) {
+                case 0:
+                    program(sc, MODES[random.nextInt(MODES.length)]);
+                    load(sc, count(counters[sc].mode));
+                    break;
+                case 1:
+                    // A new count, while counting
+                    load(sc, count(counters[sc].mode));
+                    break;
+                case 2:
+                    // Latched, then read a few clocks later
+                    int latched = counters[sc].count;
+                    timer.portOut(0, 0x43, sc << 6);
+                    clock(random.nextInt(20));
+                    check("latched count " + sc, read(sc), latched);
+                    break;
+                default:
+                    check("count " + sc, read(sc), counters[sc].count);
+                    clock(random.nextInt(200));
+                    break;
+            }
+        }
+
+        if (!pic.irqs.equals(edges)) {
+            int i = 0;
+            while (i < edges.size() && i < pic.irqs.size() && edges.get(i).equals(pic.irqs.get(i)))
+                i++;
+            fail("IRQ0 " + (i < pic.irqs.size() ? "at " + pic.irqs.get(i) : "missing") + ", expected "
+                    + (i < edges.size() ? "at " + edges.get(i) : "none") + " (IRQ " + i + ")");
+        }
+    }
+
+    /** A random count for a mode, rather short to cover many periods; 0 stands for 65536. */
+    private int count(int mode) {
+        int minimum = mode == 2 || mode == 3 ? 2 : 1;
+        return random.nextInt(50) == 0 ? 0 : minimum + random.nextInt(random.nextBoolean() ? 20 : 2000);
+    }
+
+    private void program(int sc, int mode) {
+        timer.portOut(0, 0x43, sc << 6 | 0b11 << 4 | mode << 1);
+        counters[sc].program(mode);
+    }
+
+    /** Loads a count, lsb then msb, sometimes a few clocks apart. */
+    private void load(int sc, int value) {
+        timer.portOut(0, 0x40 + sc, value & 0xff);
+        clock(random.nextInt(4) == 0 ? random.nextInt(3) : 0);
+        timer.portOut(0, 0x40 + sc, value >>> 8);
+        counters[sc].load(value);
+    }
+
+    /** Reads a count, lsb then msb. */
+    private int read(int sc) {
+        int lsb = timer.portIn(0, 0x40 + sc);
+        return timer.portIn(0, 0x40 + sc) << 8 | lsb;
+    }
+
+    /** Steps the clocks, checking the outputs at each. */
+    private void clock(int clocks) {
+        for (int i = 0; i < clocks; i++) {
+            scheduler.advance(Intel8253.CLOCK_DIVISOR);
+            for (int sc = 0; sc < 3; sc++) {
+                if (counters[sc].clock() && sc == 0)
+                    edges.add(scheduler.getTime());
+                if (timer.getOutput(sc) != counters[sc].output)
+                    fail("output " + sc + " " + timer.getOutput(sc) + " in mode " + counters[sc].mode);
+            }
+        }
+    }
+
+    private void check(String name, int actual, int expected) {
+        if (actual != expected)
+            fail(name + " " + actual + " in mode " + counters[name.charAt(name.length() - 1) - '0'].mode
+                    + ", expected " + expected);
+    }
+
+    private void fail(String message) {
+        if (failures++ < 10)
+            System.out.println("FAILED at " + scheduler.getTime() / Intel8253.CLOCK_DIVISOR + ": " + message);
+    }
+}